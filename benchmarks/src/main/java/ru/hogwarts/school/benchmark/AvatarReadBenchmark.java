@@ -0,0 +1,124 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.multipart.MultipartFile;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.StudentService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two avatar read paths behind /avatar/db and /avatar/file: the blob from the
+ * avatar_data table versus the content-addressed file on disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvatarReadBenchmark {
+
+    @Param({"16", "256"})
+    private int avatarKb;
+
+    private SchoolContext context;
+    private AvatarService avatarService;
+    private Avatar avatar;
+    private Path avatarFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = SchoolContext.start();
+        avatarService = context.getBean(AvatarService.class);
+        Student student = context.getBean(StudentService.class)
+                .createStudent(new Student(null, "Harry Potter", 15, null));
+
+        byte[] image = new byte[avatarKb * 1024];
+        ThreadLocalRandom.current().nextBytes(image);
+        avatarService.uploadAvatar(student.getId(), new BytesMultipartFile("avatar.png", "image/png", image));
+        avatar = avatarService.getAvatarByStudentId(student.getId());
+        avatarFile = Path.of(avatar.getFilePath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] readFromDatabase() {
+        return avatarService.getAvatarData(avatar);
+    }
+
+    @Benchmark
+    public byte[] readFromFile() throws IOException {
+        return Files.readAllBytes(avatarFile);
+    }
+
+    @Benchmark
+    public void streamFromFile(Blackhole blackhole) throws IOException {
+        try (InputStream in = Files.newInputStream(avatarFile)) {
+            blackhole.consume(in.transferTo(OutputStream.nullOutputStream()));
+        }
+    }
+
+    @Benchmark
+    public Avatar getAvatarMetadata() {
+        return avatarService.getAvatarByStudentId(avatar.getStudent().getId());
+    }
+
+    private record BytesMultipartFile(String originalFilename, String contentType, byte[] bytes)
+            implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return originalFilename;
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bytes.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return bytes.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public void transferTo(java.io.File dest) throws IOException {
+            Files.write(dest.toPath(), bytes);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.hogwarts.school.benchmark;
+
+import ru.hogwarts.school.SchoolApplication;
+
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar. Delegates to the JMH command line but, unless a result
+ * format is given explicitly, writes JSON results to benchmarks/results/ named after the
+ * school version, so runs of different releases can be diffed.
+ */
+public final class BenchmarkMain {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(List.of(args));
+        boolean informational = options.stream().anyMatch(o -> o.equals("-h") || o.startsWith("-l"));
+        if (!informational && !options.contains("-rf") && !options.contains("-rff")) {
+            Path results = resultsDirectory();
+            Files.createDirectories(results);
+            Path file = results.resolve("jmh-" + schoolVersion() + "-" + LocalDateTime.now().format(TIMESTAMP) + ".json");
+            options.addAll(List.of("-rf", "json", "-rff", file.toString()));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(String[]::new));
+    }
+
+    private static String schoolVersion() {
+        String version = SchoolApplication.class.getPackage().getImplementationVersion();
+        return version != null ? version : "dev";
+    }
+
+    private static Path resultsDirectory() throws URISyntaxException {
+        // benchmarks/target/benchmarks.jar -> benchmarks/results
+        Path jar = Path.of(BenchmarkMain.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path target = jar.getParent();
+        return target != null && target.getParent() != null
+                ? target.getParent().resolve("results")
+                : Path.of("results");
+    }
+}
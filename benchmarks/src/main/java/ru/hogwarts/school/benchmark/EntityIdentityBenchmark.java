@@ -0,0 +1,233 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashing, comparing and logging entities with the old value-based
+ * equals/hashCode/toString (reproduced below as Legacy* copies) against the current
+ * id-based ones. The legacy faculty walks its whole student list and the legacy avatar
+ * hashes and prints the full image.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar EntityIdentityBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityIdentityBenchmark {
+
+    @Param({"1000"})
+    private int studentsPerFaculty;
+
+    @Param({"307200"})
+    private int avatarBytes;
+
+    private LegacyFaculty legacyFaculty;
+    private LegacyAvatar legacyAvatar;
+    private Faculty faculty;
+    private Avatar avatar;
+
+    @Setup
+    public void setUp() {
+        List<LegacyStudent> legacyStudents = new ArrayList<>();
+        List<Student> students = new ArrayList<>();
+        faculty = new Faculty(1L, "Gryffindor", "Red", students);
+        for (long id = 1; id <= studentsPerFaculty; id++) {
+            // The legacy graph cannot point back at the faculty: hashing it would recurse forever.
+            legacyStudents.add(new LegacyStudent(id, "Student " + id, 15, null));
+            students.add(new Student(id, "Student " + id, 15, faculty));
+        }
+        legacyFaculty = new LegacyFaculty(1L, "Gryffindor", "Red", legacyStudents);
+
+        byte[] image = new byte[avatarBytes];
+        ThreadLocalRandom.current().nextBytes(image);
+        legacyAvatar = new LegacyAvatar(1L, "avatars/1.png", avatarBytes, "image/png", image,
+                new LegacyStudent(1L, "Harry Potter", 15, null));
+        avatar = new Avatar(1L, "avatars/1.png", avatarBytes, "image/png", 1L, students.get(0));
+    }
+
+    @Benchmark
+    public int facultyHashCodeBefore() {
+        return legacyFaculty.hashCode();
+    }
+
+    @Benchmark
+    public int facultyHashCodeAfter() {
+        return faculty.hashCode();
+    }
+
+    @Benchmark
+    public int avatarHashCodeBefore() {
+        return legacyAvatar.hashCode();
+    }
+
+    @Benchmark
+    public int avatarHashCodeAfter() {
+        return avatar.hashCode();
+    }
+
+    @Benchmark
+    public boolean avatarEqualsBefore() {
+        return legacyAvatar.equals(legacyAvatar.copy());
+    }
+
+    @Benchmark
+    public boolean avatarEqualsAfter() {
+        return avatar.equals(new Avatar(1L, "avatars/1.png", avatarBytes, "image/png", 1L, avatar.getStudent()));
+    }
+
+    @Benchmark
+    public String avatarToStringBefore() {
+        return legacyAvatar.toString();
+    }
+
+    @Benchmark
+    public String avatarToStringAfter() {
+        return avatar.toString();
+    }
+
+    @Benchmark
+    public void facultySetBefore(Blackhole blackhole) {
+        Set<LegacyFaculty> set = new HashSet<>();
+        set.add(legacyFaculty);
+        blackhole.consume(set.contains(legacyFaculty));
+    }
+
+    @Benchmark
+    public void facultySetAfter(Blackhole blackhole) {
+        Set<Faculty> set = new HashSet<>();
+        set.add(faculty);
+        blackhole.consume(set.contains(faculty));
+    }
+
+    static final class LegacyStudent {
+        final Long id;
+        final String name;
+        final int age;
+        final LegacyFaculty faculty;
+
+        LegacyStudent(Long id, String name, int age, LegacyFaculty faculty) {
+            this.id = id;
+            this.name = name;
+            this.age = age;
+            this.faculty = faculty;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LegacyStudent student = (LegacyStudent) o;
+            return age == student.age
+                    && Objects.equals(id, student.id)
+                    && Objects.equals(name, student.name)
+                    && Objects.equals(faculty, student.faculty);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name, age, faculty);
+        }
+    }
+
+    static final class LegacyFaculty {
+        final Long id;
+        final String name;
+        final String color;
+        final List<LegacyStudent> students;
+
+        LegacyFaculty(Long id, String name, String color, List<LegacyStudent> students) {
+            this.id = id;
+            this.name = name;
+            this.color = color;
+            this.students = students;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LegacyFaculty faculty = (LegacyFaculty) o;
+            return Objects.equals(id, faculty.id)
+                    && Objects.equals(name, faculty.name)
+                    && Objects.equals(color, faculty.color)
+                    && Objects.equals(students, faculty.students);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name, color, students);
+        }
+    }
+
+    static final class LegacyAvatar {
+        final Long id;
+        final String filePath;
+        final long fileSize;
+        final String mediaType;
+        final byte[] data;
+        final LegacyStudent student;
+
+        LegacyAvatar(Long id, String filePath, long fileSize, String mediaType, byte[] data, LegacyStudent student) {
+            this.id = id;
+            this.filePath = filePath;
+            this.fileSize = fileSize;
+            this.mediaType = mediaType;
+            this.data = data;
+            this.student = student;
+        }
+
+        LegacyAvatar copy() {
+            return new LegacyAvatar(id, filePath, fileSize, mediaType, data.clone(), student);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LegacyAvatar avatar = (LegacyAvatar) o;
+            return fileSize == avatar.fileSize
+                    && Objects.equals(id, avatar.id)
+                    && Objects.equals(filePath, avatar.filePath)
+                    && Objects.equals(mediaType, avatar.mediaType)
+                    && Arrays.equals(data, avatar.data)
+                    && Objects.equals(student, avatar.student);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Objects.hash(id, filePath, mediaType, fileSize, student);
+            result = 31 * result + Arrays.hashCode(data);
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return "Avatar{" +
+                    "id=" + id +
+                    ", filePath='" + filePath + '\'' +
+                    ", fileSize=" + fileSize +
+                    ", mediaType='" + mediaType + '\'' +
+                    ", data=" + Arrays.toString(data) +
+                    ", student=" + (student != null ? student.name : "null") +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.StudentService;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of a logged service call from eight threads, with the service
+ * loggers silenced, writing synchronously, going through the async appender of
+ * logback-spring.xml, and the same with INFO sampled at 1%. Compare the p0.99 rows.
+ * Console output goes to a temporary file so that the terminal is not the bottleneck.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class LoggingLatencyBenchmark {
+    private static final int STUDENTS = 1000;
+
+    @Param({"off", "sync", "async", "async-sampled"})
+    private String logging;
+
+    private PrintStream originalOut;
+    private PrintStream logOut;
+    private Path logFile;
+    private SchoolContext context;
+    private StudentService studentService;
+    private long[] studentIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logFile = Files.createTempFile("school-benchmark", ".log");
+        originalOut = System.out;
+        logOut = new PrintStream(new BufferedOutputStream(Files.newOutputStream(logFile)), false);
+        System.setOut(logOut);
+
+        context = switch (logging) {
+            case "off" -> SchoolContext.start("--logging.config=classpath:logback-spring.xml");
+            case "sync" -> SchoolContext.start("--logging.config=classpath:logback-sync.xml",
+                    "--logging.level.ru.hogwarts.school=INFO");
+            case "async" -> SchoolContext.start("--logging.config=classpath:logback-spring.xml",
+                    "--logging.level.ru.hogwarts.school=INFO");
+            case "async-sampled" -> SchoolContext.start("--logging.config=classpath:logback-spring.xml",
+                    "--logging.level.ru.hogwarts.school=INFO",
+                    "--logging.sampling.info-rate=0.01");
+            default -> throw new IllegalArgumentException("Unknown logging mode: " + logging);
+        };
+        studentService = context.getBean(StudentService.class);
+        Faculty faculty = context.getBean(FacultyService.class).createFaculty("Gryffindor", "Red");
+        studentIds = new long[STUDENTS];
+        for (int i = 0; i < STUDENTS; i++) {
+            studentIds[i] = studentService.createStudent(new Student(null, "Student " + i, 11 + i % 8, faculty)).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        System.setOut(originalOut);
+        logOut.close();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    public Student getStudentById() {
+        return studentService.getStudent(studentIds[ThreadLocalRandom.current().nextInt(STUDENTS)]);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.hogwarts.school.service.MathService;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * {@link MathService} range reductions with memoization disabled, next to the old
+ * {@code LongStream.iterate(...).limit(...).parallel()} sum it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathBenchmark {
+
+    @Param({"1000000"})
+    private long to;
+
+    private ForkJoinPool pool;
+    private MathService mathService;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        mathService = new MathService(pool, 0, Integer.MAX_VALUE, Duration.ofMinutes(1), Long.MAX_VALUE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public long iterateParallelSum() {
+        return LongStream.iterate(1, a -> a + 1)
+                .limit(to)
+                .parallel()
+                .reduce(0, Long::sum);
+    }
+
+    @Benchmark
+    public long sum() {
+        return mathService.sum(1, to);
+    }
+
+    @Benchmark
+    public long sumOfSquares() {
+        return mathService.sumOfSquares(1, to);
+    }
+
+    @Benchmark
+    public long countPrimes() {
+        return mathService.count(1, to, MathService.RangePredicate.PRIME);
+    }
+}
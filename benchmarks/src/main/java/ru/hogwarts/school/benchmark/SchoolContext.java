@@ -0,0 +1,71 @@
+package ru.hogwarts.school.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.hogwarts.school.SchoolApplication;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * The school application without a web server, on a private in-memory H2 database and a
+ * temporary avatar directory. Service beans are benchmarked directly.
+ */
+final class SchoolContext implements AutoCloseable {
+    private final Path storageDir;
+    private final ConfigurableApplicationContext context;
+
+    private SchoolContext(Path storageDir, ConfigurableApplicationContext context) {
+        this.storageDir = storageDir;
+        this.context = context;
+    }
+
+    /**
+     * @param extraArgs further {@code --name=value} arguments; later ones override the defaults
+     */
+    static SchoolContext start(String... extraArgs) throws IOException {
+        Path storageDir = Files.createTempDirectory("school-benchmark");
+        // Command-line arguments outrank application.properties, which points at PostgreSQL.
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--avatar.storage.dir=" + storageDir,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        args.addAll(List.of(extraArgs));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SchoolApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+        return new SchoolContext(storageDir, context);
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        try (Stream<Path> paths = Files.walk(storageDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
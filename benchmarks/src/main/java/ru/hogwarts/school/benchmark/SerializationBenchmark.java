@@ -0,0 +1,75 @@
+package ru.hogwarts.school.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.hogwarts.school.dto.MyApiResponse;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the payloads the controllers return, using a mapper set up
+ * like Spring Boot's (modules on the classpath registered, dates as timestamps).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private Student student;
+    private Faculty faculty;
+    private Avatar avatar;
+    private MyApiResponse<List<StudentDto>> response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        faculty = new Faculty(1L, "Gryffindor", "Red", new ArrayList<>());
+        student = new Student(1L, "Harry Potter", 15, faculty);
+        faculty.getStudents().add(student);
+        avatar = new Avatar(1L, "avatars/ab/abcdef.png", 102_400, "image/png", 1L, student);
+        avatar.setUpdatedAt(Instant.parse("2024-09-01T10:00:00Z"));
+        student.setAvatar(avatar);
+
+        List<StudentDto> students = new ArrayList<>();
+        for (long id = 1; id <= listSize; id++) {
+            students.add(new StudentDto(id, "Student " + id, 11 + (int) (id % 8), 1L, "Gryffindor", "Red"));
+        }
+        response = MyApiResponse.of(students);
+    }
+
+    @Benchmark
+    public byte[] serializeStudent() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(student);
+    }
+
+    @Benchmark
+    public byte[] serializeFaculty() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(faculty);
+    }
+
+    @Benchmark
+    public byte[] serializeAvatar() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(avatar);
+    }
+
+    @Benchmark
+    public byte[] serializeApiResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,125 @@
+package ru.hogwarts.school.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.FacultyService;
+import ru.hogwarts.school.service.StudentImportService;
+import ru.hogwarts.school.service.StudentService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link StudentService} and roster query paths against an in-memory H2 database seeded
+ * with {@code students} generated students spread over four faculties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudentServiceBenchmark {
+    private static final String[] FACULTIES = {"Gryffindor", "Hufflepuff", "Ravenclaw", "Slytherin"};
+
+    @Param({"10000"})
+    private int students;
+
+    private SchoolContext context;
+    private StudentService studentService;
+    private FacultyService facultyService;
+    private long[] studentIds;
+    private long[] facultyIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = SchoolContext.start();
+        studentService = context.getBean(StudentService.class);
+        facultyService = context.getBean(FacultyService.class);
+
+        facultyIds = new long[FACULTIES.length];
+        for (int i = 0; i < FACULTIES.length; i++) {
+            Faculty faculty = facultyService.createFaculty(FACULTIES[i], "color " + i);
+            facultyIds[i] = faculty.getId();
+        }
+        StringBuilder csv = new StringBuilder("name,age,faculty_id\n");
+        for (int i = 0; i < students; i++) {
+            csv.append("Student ").append(i).append(',')
+                    .append(11 + i % 8).append(',')
+                    .append(facultyIds[i % facultyIds.length]).append('\n');
+        }
+        context.getBean(StudentImportService.class)
+                .importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        studentIds = context.getBean(StudentRepository.class).findAll().stream()
+                .mapToLong(Student::getId)
+                .sorted()
+                .toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+    }
+
+    @Benchmark
+    public Student getStudentById() {
+        return studentService.getStudent(randomStudentId());
+    }
+
+    @Benchmark
+    public List<StudentDto> getStudentsPage() {
+        return studentService.getStudentsAfter(randomStudentId(), 100);
+    }
+
+    @Benchmark
+    public List<StudentDto> getStudentsByAgeBetween() {
+        return studentService.getStudentsByAgeBetween(12, 13);
+    }
+
+    @Benchmark
+    public long countStudentsByAgeBetween() {
+        return studentService.countStudentsByAgeBetween(12, 16);
+    }
+
+    @Benchmark
+    public List<StudentDto> searchByPrefix() {
+        return studentService.searchStudents("Student 12", null, 50);
+    }
+
+    @Benchmark
+    public List<StudentDto> searchBySubstring() {
+        return studentService.searchStudents(null, "99", 50);
+    }
+
+    @Benchmark
+    public List<StudentDto> getFacultyRosterPage() {
+        long facultyId = facultyIds[ThreadLocalRandom.current().nextInt(facultyIds.length)];
+        return facultyService.getStudentsByFacultyId(facultyId, 0, 100, "name", "asc").getContent();
+    }
+
+    @Benchmark
+    public List<StudentDto> findLastFiveStudents() {
+        return studentService.findLastFiveStudents();
+    }
+
+    @Benchmark
+    public List<String> getFirstSixStudentsNames() {
+        return studentService.getFirstSixStudentsNames();
+    }
+
+    @Benchmark
+    public Double findAverageAge() {
+        return studentService.findAverageAge();
+    }
+
+    private long randomStudentId() {
+        return studentIds[ThreadLocalRandom.current().nextInt(studentIds.length)];
+    }
+}
@@ -0,0 +1,76 @@
+#!/usr/bin/env bash
+#
+# Compares throughput of the blocking JPA endpoints on platform threads and on
+# virtual threads. Needs a JDK 21+, a running PostgreSQL with the hogwarts schema
+# and https://github.com/rakyll/hey on the PATH.
+#
+#   load-test/run.sh [student-id-with-avatar]
+#
+# Environment: CONCURRENCY (default 200), DURATION (default 30s), PORT (default 8080).
+# Results are written to load-test/results/<mode>.txt.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+STUDENT_ID="${1:-1}"
+CONCURRENCY="${CONCURRENCY:-200}"
+DURATION="${DURATION:-30s}"
+PORT="${PORT:-8080}"
+BASE_URL="http://localhost:${PORT}"
+RESULTS=load-test/results
+
+ENDPOINTS=(
+    "/students/${STUDENT_ID}"
+    "/students?limit=100"
+    "/students/count"
+    "/avatar/db/${STUDENT_ID}"
+    "/avatar/file/${STUDENT_ID}"
+)
+
+mkdir -p "$RESULTS"
+mvn -q -Pvirtual-threads -DskipTests package
+JAR=$(ls target/school-*.jar | grep -v -- '-classes.jar$' | head -n 1)
+
+wait_for_startup() {
+    for _ in $(seq 1 60); do
+        if curl -fs "${BASE_URL}/actuator/health" > /dev/null; then
+            return 0
+        fi
+        sleep 1
+    done
+    echo "Application did not start" >&2
+    return 1
+}
+
+run_mode() {
+    local mode="$1"
+    local profiles="$2"
+    local out="${RESULTS}/${mode}.txt"
+
+    java -jar "$JAR" --server.port="$PORT" --spring.profiles.active="$profiles" > "${RESULTS}/${mode}.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+    wait_for_startup
+
+    : > "$out"
+    for endpoint in "${ENDPOINTS[@]}"; do
+        # Warm up the JIT and the connection pool before measuring.
+        hey -z 5s -c "$CONCURRENCY" "${BASE_URL}${endpoint}" > /dev/null
+        {
+            echo "== ${mode} ${endpoint}"
+            hey -z "$DURATION" -c "$CONCURRENCY" "${BASE_URL}${endpoint}" \
+                | grep -E "Requests/sec|Average|99% in|\[[0-9]{3}\]"
+            echo
+        } >> "$out"
+    done
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run_mode platform default
+run_mode virtual virtual
+
+grep -H -E "^==|Requests/sec" "${RESULTS}"/platform.txt "${RESULTS}"/virtual.txt
@@ -0,0 +1,42 @@
+-- Бенчмарк: поиск студентов по началу имени и по подстроке.
+-- Запускать в psql на отдельной базе со схемой hogwarts и индексами из liquibase (changeSet 8, 9 и 13):
+-- \i sql_scripts/benchmark_name_search.sql
+
+\timing on
+
+-- 1. Наполнить таблицу студентов до 1 000 000 строк со случайными именами.
+-- id созданных строк запоминаются, чтобы в конце удалить только их, а не настоящие данные.
+CREATE TEMP TABLE benchmark_student_ids (id BIGINT PRIMARY KEY);
+
+WITH inserted AS (
+    INSERT INTO student (name, age)
+    SELECT initcap(md5(g::text)) || ' ' || initcap(substr(md5((g * 7)::text), 1, 10)), 11 + g % 8
+    FROM generate_series(1, 1000000) AS g
+    RETURNING id
+)
+INSERT INTO benchmark_student_ids SELECT id FROM inserted;
+
+ANALYZE student;
+
+-- 2. Старый запрос: UPPER(name) LIKE 'А%' без функционального индекса (idx_student_name не подходит)
+SET enable_indexscan = off;
+SET enable_bitmapscan = off;
+EXPLAIN (ANALYZE, BUFFERS) SELECT name FROM student WHERE UPPER(name) LIKE 'AB%' ORDER BY name;
+RESET enable_indexscan;
+RESET enable_bitmapscan;
+
+-- 3. Поиск по началу имени: для узкого префикса idx_student_name_upper_prefix (varchar_pattern_ops),
+-- для широкого planner идёт по idx_student_name_upper_id в порядке сортировки и останавливается на LIMIT
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT s.id, s.name, s.age FROM student s WHERE UPPER(s.name) LIKE 'AB%' ESCAPE '\' ORDER BY UPPER(s.name), s.id LIMIT 50;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT s.id, s.name, s.age FROM student s WHERE UPPER(s.name) LIKE 'A%' ESCAPE '\' ORDER BY UPPER(s.name), s.id LIMIT 50;
+
+-- 4. Поиск по подстроке: idx_student_name_upper_trgm (gin_trgm_ops)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT s.id, s.name, s.age FROM student s WHERE UPPER(s.name) LIKE '%F00D%' ESCAPE '\' ORDER BY UPPER(s.name), s.id LIMIT 50;
+
+-- 5. Убрать тестовые данные: только строки, созданные в шаге 1
+DELETE FROM student WHERE id IN (SELECT id FROM benchmark_student_ids);
+DROP TABLE benchmark_student_ids;
@@ -0,0 +1,47 @@
+-- Бенчмарк: первые шесть имён студентов и самое длинное название факультета.
+-- Запускать в psql на отдельной базе со схемой hogwarts: \i sql_scripts/benchmark_names.sql
+-- Сравнивается старый вариант (вся таблица уходит в приложение) с запросами из репозиториев.
+
+\timing on
+
+-- 1. Наполнить таблицу студентов до 1 000 000 строк.
+-- id созданных строк запоминаются, чтобы в конце удалить только их, а не настоящие данные.
+CREATE TEMP TABLE benchmark_faculty_ids (id BIGINT PRIMARY KEY);
+CREATE TEMP TABLE benchmark_student_ids (id BIGINT PRIMARY KEY);
+
+WITH inserted AS (
+    INSERT INTO faculty (name, color)
+    SELECT 'Faculty ' || g || repeat('x', g % 40), 'color ' || g
+    FROM generate_series(1, 1000) AS g
+    RETURNING id
+)
+INSERT INTO benchmark_faculty_ids SELECT id FROM inserted;
+
+WITH inserted AS (
+    INSERT INTO student (name, age)
+    SELECT 'Student ' || g, 11 + g % 8
+    FROM generate_series(1, 1000000) AS g
+    RETURNING id
+)
+INSERT INTO benchmark_student_ids SELECT id FROM inserted;
+
+ANALYZE student;
+ANALYZE faculty;
+
+-- 2. Старый getFirstSixStudentsNames: findAll() читает все строки, limit(6) делается в Java
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM student;
+
+-- 3. Новый getFirstSixStudentsNames: findNamesOrderedById(Limit.of(6)), идёт по первичному ключу
+EXPLAIN (ANALYZE, BUFFERS) SELECT name FROM student ORDER BY id LIMIT 6;
+
+-- 4. Старый getLongestFacultyName: findAll() по всем факультетам
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM faculty;
+
+-- 5. Новый getLongestFacultyName: findNamesByLengthDesc(Limit.of(1)), top-1 сортировка в базе
+EXPLAIN (ANALYZE, BUFFERS) SELECT name FROM faculty ORDER BY length(name) DESC, id LIMIT 1;
+
+-- 6. Убрать тестовые данные: только строки, созданные в шаге 1
+DELETE FROM student WHERE id IN (SELECT id FROM benchmark_student_ids);
+DELETE FROM faculty WHERE id IN (SELECT id FROM benchmark_faculty_ids);
+DROP TABLE benchmark_student_ids;
+DROP TABLE benchmark_faculty_ids;
@@ -0,0 +1,179 @@
+package ru.hogwarts.school.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Executor behind {@code @Async("taskExecutor")}. Both variants are bounded and reject
+     * with {@link TaskRejectedException} once full, which the API reports as 503.
+     */
+    @Bean
+    public AsyncTaskExecutor taskExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${avatar.upload.pool-size:4}") int poolSize,
+            @Value("${avatar.upload.queue-capacity:32}") int queueCapacity,
+            @Value("${avatar.upload.virtual-threads:false}") boolean virtualThreads,
+            @Value("${avatar.upload.max-concurrency:64}") int maxConcurrency) {
+        TaskDecorator decorator = timingDecorator(meterRegistry, "taskExecutor");
+        if (virtualThreads) {
+            log.info("Avatar uploads run on virtual threads, at most {} at a time", maxConcurrency);
+            Semaphore permits = new Semaphore(maxConcurrency);
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("avatar-upload-") {
+                @Override
+                protected void doExecute(Runnable task) {
+                    if (!permits.tryAcquire()) {
+                        throw new TaskRejectedException("Avatar upload limit of " + maxConcurrency + " reached");
+                    }
+                    try {
+                        super.doExecute(() -> {
+                            try {
+                                task.run();
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        permits.release();
+                        throw e;
+                    }
+                }
+            };
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(decorator);
+            Gauge.builder("executor.active", permits, p -> maxConcurrency - p.availablePermits())
+                    .tag("name", "taskExecutor")
+                    .register(meterRegistry);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("avatar-upload-");
+        executor.setTaskDecorator(decorator);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor avatarThumbnailExecutor(
+            @Value("${avatar.thumbnail.pool-size:1}") int poolSize,
+            @Value("${avatar.thumbnail.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("avatar-thumbnail-");
+        return executor;
+    }
+
+    /**
+     * Workers of roster batch jobs. A job uses at most its own parallelism of these threads,
+     * and once the queue is full further jobs are rejected instead of piling up.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor rosterJobExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${roster.jobs.pool-size:4}") int poolSize,
+            @Value("${roster.jobs.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("roster-job-");
+        executor.setTaskDecorator(timingDecorator(meterRegistry, "rosterJobExecutor"));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Runs the {@code StreamingResponseBody} of /students/stream and /students/export. Each
+     * stream holds a database cursor for its whole duration, so the pool stays well below the
+     * connection pool, and streams beyond the queue are rejected instead of each getting a
+     * new thread from Spring MVC's fallback executor.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${mvc.async.pool-size:4}") int poolSize,
+            @Value("${mvc.async.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        executor.setTaskDecorator(timingDecorator(meterRegistry, "mvcAsyncExecutor"));
+        return executor;
+    }
+
+    /**
+     * Pool behind the /math compute endpoints. Kept apart from the common pool and sized
+     * below the core count by default, so CPU-heavy requests leave headroom for CRUD traffic.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool mathForkJoinPool(@Value("${math.pool.parallelism:0}") int parallelism) {
+        int size = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        log.info("Math compute pool parallelism: {}", size);
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("math-" + thread.getPoolIndex());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+        return new ForkJoinPool(size, factory, null, false);
+    }
+
+    /**
+     * Records how long tasks wait in the queue and how long they run, and carries the
+     * caller's MDC over to the worker thread.
+     */
+    static TaskDecorator timingDecorator(MeterRegistry meterRegistry, String name) {
+        Timer queued = Timer.builder("executor.task.queued")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Timer execution = Timer.builder("executor.task.execution")
+                .tag("name", name)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        return task -> {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            long submitted = System.nanoTime();
+            return () -> {
+                queued.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                if (context != null) {
+                    MDC.setContextMap(context);
+                }
+                try {
+                    execution.record(task);
+                } finally {
+                    MDC.clear();
+                }
+            };
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package ru.hogwarts.school.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts avatar bytes actually written to clients as avatar.bytes.served, tagged with
+ * the read path. Counting the output stream rather than file sizes keeps 304s, HEAD and
+ * range requests honest.
+ */
+public class AvatarBytesServedFilter extends OncePerRequestFilter {
+    private final Counter database;
+    private final Counter file;
+
+    public AvatarBytesServedFilter(MeterRegistry meterRegistry) {
+        this.database = counter(meterRegistry, "db");
+        this.file = counter(meterRegistry, "file");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("avatar.bytes.served")
+                .baseUnit("bytes")
+                .description("Avatar image bytes written to responses")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CountingResponse counting = new CountingResponse(response);
+        try {
+            chain.doFilter(request, counting);
+        } finally {
+            if (counting.written > 0) {
+                (request.getServletPath().startsWith("/avatar/db/") ? database : file).increment(counting.written);
+            }
+        }
+    }
+
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private ServletOutputStream outputStream;
+        private long written;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        written++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        written += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        delegate.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.hogwarts.school.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.AvatarService;
+
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String AVATARS_CACHE = "avatars";
+
+    // Shallow sizes on a 64-bit JVM with compressed oops, rounded up to 8 bytes
+    private static final int NODE_BYTES = 72;
+    private static final int LONG_BYTES = 16;
+    private static final int INSTANT_BYTES = 24;
+    private static final int STRING_BYTES = 24 + 16;
+    private static final int AVATAR_BYTES = 48;
+    private static final int STUDENT_BYTES = 32;
+    private static final int FACULTY_BYTES = 32;
+    private static final int LAZY_COLLECTION_BYTES = 64;
+
+    /**
+     * Misses and refresh-ahead reloads go through {@link AvatarService#loadAvatar}, so they
+     * run in a read-only transaction and are timed like any other service call.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> avatarsCacheCustomizer(
+            ObjectProvider<AvatarService> avatarService,
+            @Value("${avatar.cache.maximum-weight:4MB}") DataSize maximumWeight,
+            @Value("${avatar.cache.expire-after-write:PT1H}") Duration expireAfterWrite,
+            @Value("${avatar.cache.refresh-after-write:PT5M}") Duration refreshAfterWrite) {
+        return cacheManager -> cacheManager.registerCustomCache(AVATARS_CACHE, Caffeine.newBuilder()
+                .maximumWeight(maximumWeight.toBytes())
+                .weigher((Object key, Object value) -> weigh(value))
+                .expireAfterWrite(expireAfterWrite)
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .build(key -> {
+                    log.debug("Refreshing cached avatar for student id: {}", key);
+                    return avatarService.getObject().loadAvatar((Long) key);
+                }));
+    }
+
+    /**
+     * Estimated heap retained by one entry: the Caffeine node and key, and the detached
+     * {@link Avatar} with the {@link Student} and {@link Faculty} it drags along.
+     */
+    static int weigh(Object value) {
+        int weight = NODE_BYTES + LONG_BYTES;
+        if (value instanceof Avatar avatar) {
+            weight += AVATAR_BYTES + 2 * LONG_BYTES + INSTANT_BYTES
+                    + size(avatar.getFilePath())
+                    + size(avatar.getMediaType());
+            Student student = avatar.getStudent();
+            if (student != null) {
+                weight += STUDENT_BYTES + LONG_BYTES + size(student.getName());
+                Faculty faculty = student.getFaculty();
+                if (faculty != null) {
+                    weight += FACULTY_BYTES + LONG_BYTES + LAZY_COLLECTION_BYTES
+                            + size(faculty.getName())
+                            + size(faculty.getColor());
+                }
+            }
+        }
+        return weight;
+    }
+
+    // Non-Latin-1 text, such as Cyrillic names, takes two bytes per char
+    private static int size(String value) {
+        return value != null ? STRING_BYTES + 2 * value.length() : 0;
+    }
+}
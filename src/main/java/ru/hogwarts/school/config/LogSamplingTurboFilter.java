@@ -0,0 +1,44 @@
+package ru.hogwarts.school.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lets through only a fraction of the INFO events of loggers under a prefix; WARN and
+ * ERROR always pass. Runs before the message is formatted, so dropped calls cost a
+ * random number and nothing else. Configured from logback-spring.xml.
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+    private String loggerPrefix = "";
+    private double rate = 1.0;
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    @Override
+    public void start() {
+        if (rate < 0.0 || rate > 1.0) {
+            addError("Sampling rate must be between 0 and 1, was " + rate);
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || rate >= 1.0 || level != Level.INFO || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return ThreadLocalRandom.current().nextDouble() < rate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
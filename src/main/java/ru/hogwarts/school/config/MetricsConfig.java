@@ -0,0 +1,54 @@
+package ru.hogwarts.school.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics beyond what Actuator records on its own. HTTP latency histograms
+ * (http.server.requests) and repository timings (spring.data.repository.invocations)
+ * are switched on in application.properties; everything is scraped from
+ * /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+    public static final String SERVICE_TIMER = "school.service";
+
+    /**
+     * Makes {@code @Timed} on service classes record a timer per method.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Hit ratio of each Caffeine cache, next to the cache.gets counters Actuator already
+     * publishes, so dashboards do not have to divide rates themselves.
+     */
+    @Bean
+    public MeterBinder cacheHitRatioMetrics(CacheManager cacheManager) {
+        return registry -> cacheManager.getCacheNames().forEach(name -> {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                Gauge.builder("cache.hit.ratio", cache.getNativeCache(), nativeCache -> nativeCache.stats().hitRate())
+                        .tag("cache", name)
+                        .description("Share of cache lookups that were hits")
+                        .register(registry);
+            }
+        });
+    }
+
+    @Bean
+    public FilterRegistrationBean<AvatarBytesServedFilter> avatarBytesServedFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<AvatarBytesServedFilter> registration =
+                new FilterRegistrationBean<>(new AvatarBytesServedFilter(meterRegistry));
+        registration.addUrlPatterns("/avatar/db/*", "/avatar/file/*");
+        return registration;
+    }
+}
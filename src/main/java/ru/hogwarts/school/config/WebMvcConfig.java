@@ -0,0 +1,36 @@
+package ru.hogwarts.school.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * The executor beans in {@link AsyncConfig} switch off Boot's {@code applicationTaskExecutor},
+ * so asynchronous MVC handlers are pointed at a bounded pool of their own explicitly.
+ * Streams read the whole table, so unless {@code spring.mvc.async.request-timeout} says
+ * otherwise they are not cut off by the servlet container's async timeout.
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+    private final ObjectProvider<AsyncTaskExecutor> mvcAsyncExecutor;
+    private final Duration requestTimeout;
+
+    // A provider, because @WebMvcTest slices pick up this configurer but not AsyncConfig
+    public WebMvcConfig(@Qualifier("mvcAsyncExecutor") ObjectProvider<AsyncTaskExecutor> mvcAsyncExecutor,
+                        @Value("${spring.mvc.async.request-timeout:-1}") Duration requestTimeout) {
+        this.mvcAsyncExecutor = mvcAsyncExecutor;
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        mvcAsyncExecutor.ifAvailable(configurer::setTaskExecutor);
+        configurer.setDefaultTimeout(requestTimeout.toMillis());
+    }
+}
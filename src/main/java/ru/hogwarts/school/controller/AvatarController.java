@@ -8,23 +8,35 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import ru.hogwarts.school.dto.ErrorResponse;
 import ru.hogwarts.school.dto.MyApiResponse;
 import ru.hogwarts.school.exception.EntityNotFoundException;
 import ru.hogwarts.school.model.Avatar;
 import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.OffHeapAvatarCache.CachedAvatar;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @Tag(name = "Avatar Management", description = "Endpoints for managing student avatars")
 @RestController
@@ -48,10 +60,15 @@ public class AvatarController {
             """;
 
     private final AvatarService avatarService;
+    private final CacheControl cacheControl;
 
     @Autowired
-    public AvatarController(AvatarService avatarService) {
+    public AvatarController(AvatarService avatarService,
+                            @Value("${avatar.http.cache.max-age:PT1M}") Duration maxAge,
+                            @Value("${avatar.http.cache.immutable:false}") boolean immutable) {
         this.avatarService = avatarService;
+        CacheControl publicMaxAge = CacheControl.maxAge(maxAge).cachePublic();
+        this.cacheControl = immutable ? publicMaxAge.immutable() : publicMaxAge;
     }
 
     @Operation(
@@ -150,6 +167,14 @@ public class AvatarController {
                                     schema= @Schema(implementation= ErrorResponse.class)
                             )
                     ),
+                    @ApiResponse(
+                            responseCode= "503",
+                            description= "Upload queue or avatar writer is saturated, retry later",
+                            content= @Content(
+                                    mediaType= MediaType.APPLICATION_JSON_VALUE,
+                                    schema= @Schema(implementation= ErrorResponse.class)
+                            )
+                    ),
                     @ApiResponse(
                             responseCode= "500",
                             description= "Internal server error",
@@ -175,6 +200,10 @@ public class AvatarController {
                     } else if (cause instanceof IllegalArgumentException) {
                         return ResponseEntity.badRequest()
                                 .body(MyApiResponse.error(cause.getMessage()));
+                    } else if (cause instanceof RejectedExecutionException) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(MyApiResponse.error("Server is busy, please try again later"));
                     }
                     return ResponseEntity.internalServerError()
                             .body(MyApiResponse.error("Internal server error"));
@@ -183,17 +212,46 @@ public class AvatarController {
 
     @Operation(
             summary = "Get avatar from database",
-            description = "Returns avatar image data with proper content type"
+            description = "Returns avatar image data with proper content type, "
+                    + "or a pre-generated thumbnail when size is given"
     )
     @GetMapping("/db/{studentId}")
-    public ResponseEntity<byte[]> getAvatarFromDb(
+    public ResponseEntity<Resource> getAvatarFromDb(
             @Parameter(description = "ID of student", required = true, example = "1")
-            @PathVariable Long studentId) {
+            @PathVariable Long studentId,
+            @Parameter(description = "Thumbnail size in pixels", example = "64")
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
         try {
             Avatar avatar = avatarService.getAvatarByStudentId(studentId);
+            Optional<Path> thumbnail = size != null ? avatarService.getAvatarThumbnail(avatar, size) : Optional.empty();
+            String eTag = eTag(avatar, thumbnail.isPresent() ? size : null);
+            if (webRequest.checkNotModified(eTag, lastModified(avatar))) {
+                return notModified();
+            }
+            if (thumbnail.isPresent()) {
+                return thumbnailResponse(avatar, thumbnail.get(), eTag);
+            }
+            Optional<CachedAvatar> cached = avatarService.getCachedAvatarData(avatar);
+            if (cached.isPresent()) {
+                CachedAvatar data = cached.get();
+                webRequest.registerDestructionCallback(CachedAvatar.class.getName(), data::close,
+                        RequestAttributes.SCOPE_REQUEST);
+                return ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(avatar.getMediaType()))
+                        .contentLength(data.length())
+                        .eTag(eTag)
+                        .lastModified(lastModified(avatar))
+                        .cacheControl(cacheControl)
+                        .body(data.asResource());
+            }
+            byte[] data = avatarService.getAvatarData(avatar);
             return ResponseEntity.ok()
                     .contentType(MediaType.parseMediaType(avatar.getMediaType()))
-                    .body(avatar.getData());
+                    .eTag(eTag)
+                    .lastModified(lastModified(avatar))
+                    .cacheControl(cacheControl)
+                    .body(new ByteArrayResource(data));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
@@ -201,29 +259,74 @@ public class AvatarController {
 
     @Operation(
             summary = "Get avatar from file system",
-            description = "Returns avatar image data from stored file"
+            description = "Streams avatar image from stored file, supports Range and HEAD requests. "
+                    + "Serves a pre-generated thumbnail when size is given"
     )
     @GetMapping("/file/{studentId}")
-    public ResponseEntity<byte[]> getAvatarFromFile(
+    public ResponseEntity<Resource> getAvatarFromFile(
             @Parameter(description = "ID of student", required = true, example = "1")
-            @PathVariable Long studentId) {
+            @PathVariable Long studentId,
+            @Parameter(description = "Thumbnail size in pixels", example = "64")
+            @RequestParam(required = false) Integer size,
+            WebRequest webRequest) {
         try {
             Avatar avatar = avatarService.getAvatarByStudentId(studentId);
+            Optional<Path> thumbnail = size != null ? avatarService.getAvatarThumbnail(avatar, size) : Optional.empty();
+            String eTag = eTag(avatar, thumbnail.isPresent() ? size : null);
+            if (webRequest.checkNotModified(eTag, lastModified(avatar))) {
+                return notModified();
+            }
+            if (thumbnail.isPresent()) {
+                return thumbnailResponse(avatar, thumbnail.get(), eTag);
+            }
             Path path = Path.of(avatar.getFilePath());
-            if (!Files.exists(path)) {
+            if (!Files.isReadable(path)) {
                 return ResponseEntity.notFound().build();
             }
-            byte[] data = Files.readAllBytes(path);
             return ResponseEntity.ok()
                     .contentType(MediaType.parseMediaType(avatar.getMediaType()))
-                    .body(data);
+                    .contentLength(avatar.getFileSize())
+                    .eTag(eTag)
+                    .lastModified(lastModified(avatar))
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .body(new FileSystemResource(path));
         } catch (EntityNotFoundException e) {
             return ResponseEntity.notFound().build();
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * checkNotModified has already set the status, ETag and Last-Modified; a 304 must
+     * repeat the caching policy of the 200 it stands for (RFC 9111, section 4.3.4).
+     */
+    private ResponseEntity<Resource> notModified() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(cacheControl)
+                .build();
+    }
+
+    private ResponseEntity<Resource> thumbnailResponse(Avatar avatar, Path thumbnail, String eTag) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(avatar.getMediaType()))
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .eTag(eTag)
+                .lastModified(lastModified(avatar))
+                .cacheControl(cacheControl)
+                .body(new FileSystemResource(thumbnail));
+    }
+
+    private static String eTag(Avatar avatar, Integer size) {
+        String version = avatar.getDataId() != null
+                ? String.valueOf(avatar.getDataId())
+                : avatar.getId() + "." + avatar.getFileSize();
+        return "\"" + version + (size != null ? "-" + size : "") + "\"";
+    }
+
+    private static long lastModified(Avatar avatar) {
+        return avatar.getUpdatedAt() != null ? avatar.getUpdatedAt().toEpochMilli() : -1;
+    }
+
     @Operation(
             summary = "Get avatars with pagination",
             description = "Returns page of avatar metadata (without image data)"
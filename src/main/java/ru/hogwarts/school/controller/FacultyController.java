@@ -1,18 +1,22 @@
 package ru.hogwarts.school.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.hogwarts.school.dto.StudentDto;
 import ru.hogwarts.school.exception.EntityNotFoundException;
 import ru.hogwarts.school.model.Faculty;
-import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.service.FacultyService;
 
 import java.util.List;
@@ -77,15 +81,39 @@ public class FacultyController {
         return ResponseEntity.ok(faculties);
     }
 
-    @Operation(summary = "Get students by faculty ID")
+    @Operation(
+            summary = "Get students by faculty ID",
+            description = "Returns one page of the faculty roster. When there are more students a Link header "
+                    + "with rel=\"next\" points to the following page. A faculty without students, "
+                    + "or a page past the end, is 404 as before paging"
+    )
     @GetMapping("/{id}/students")
-    public ResponseEntity<List<Student>> getStudentsByFacultyId(@PathVariable Long id) {
-        List<Student> students = facultyService.getStudentsByFacultyId(id);
-        if (students != null && !students.isEmpty()) {
-            return ResponseEntity.ok(students);
-        } else {
+    public ResponseEntity<List<StudentDto>> getStudentsByFacultyId(
+            @PathVariable Long id,
+            @Parameter(description = "Zero-based page number", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size, at most " + FacultyService.MAX_ROSTER_PAGE_SIZE, example = "100")
+            @RequestParam(defaultValue = "100") int size,
+            @Parameter(description = "Sort field: id, name or age", example = "name")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "Sort direction: asc or desc", example = "asc")
+            @RequestParam(defaultValue = "asc") String direction) {
+        Slice<StudentDto> students = facultyService.getStudentsByFacultyId(id, page, size, sort, direction);
+        if (students.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        if (!students.hasNext()) {
+            return ResponseEntity.ok(students.getContent());
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("page", page + 1)
+                .replaceQueryParam("size", size)
+                .replaceQueryParam("sort", sort)
+                .replaceQueryParam("direction", direction)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(students.getContent());
     }
 
     @Operation(
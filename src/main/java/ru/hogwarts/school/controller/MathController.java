@@ -1,14 +1,17 @@
 package ru.hogwarts.school.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.hogwarts.school.service.MathService;
 
@@ -24,16 +27,61 @@ public class MathController {
     }
 
     @Operation(
-            summary = "Calculate optimized sum",
-            description = "Calculates sum of numbers from 1 to 1,000,000 using arithmetic progression formula"
-    )
-    @ApiResponse(
-            responseCode = "200",
-            description = "Sum calculated",
-            content = @Content(schema = @Schema(type = "integer"))
+            summary = "Calculate sum of a range",
+            description = "Sums the integers from from to to inclusive, by default 1 to 1,000,000"
     )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Sum calculated",
+                    content = @Content(schema = @Schema(type = "integer"))),
+            @ApiResponse(responseCode = "400", description = "Invalid range or result overflows"),
+            @ApiResponse(responseCode = "503", description = "Engine busy or computation timed out")
+    })
     @GetMapping("/sum")
-    public ResponseEntity<Long> calculateSum() {
-        return ResponseEntity.ok(mathService.calculateSum());
+    public ResponseEntity<Long> calculateSum(
+            @Parameter(description = "Lower bound, inclusive", example = "1")
+            @RequestParam(defaultValue = "1") long from,
+            @Parameter(description = "Upper bound, inclusive", example = "1000000")
+            @RequestParam(defaultValue = "1000000") long to) {
+        return ResponseEntity.ok(mathService.sum(from, to));
+    }
+
+    @Operation(
+            summary = "Calculate sum of squares of a range",
+            description = "Sums n * n for every integer n from from to to inclusive"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Sum of squares calculated",
+                    content = @Content(schema = @Schema(type = "integer"))),
+            @ApiResponse(responseCode = "400", description = "Invalid range or result overflows"),
+            @ApiResponse(responseCode = "503", description = "Engine busy or computation timed out")
+    })
+    @GetMapping("/sum-of-squares")
+    public ResponseEntity<Long> calculateSumOfSquares(
+            @Parameter(description = "Lower bound, inclusive", example = "1")
+            @RequestParam(defaultValue = "1") long from,
+            @Parameter(description = "Upper bound, inclusive", example = "1000")
+            @RequestParam(defaultValue = "1000") long to) {
+        return ResponseEntity.ok(mathService.sumOfSquares(from, to));
+    }
+
+    @Operation(
+            summary = "Count numbers in a range matching a predicate",
+            description = "Counts integers from from to to inclusive that are even, odd, prime or perfect-square"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Count calculated",
+                    content = @Content(schema = @Schema(type = "integer"))),
+            @ApiResponse(responseCode = "400", description = "Invalid range or predicate"),
+            @ApiResponse(responseCode = "503", description = "Engine busy or computation timed out")
+    })
+    @GetMapping("/count")
+    public ResponseEntity<Long> count(
+            @Parameter(description = "Lower bound, inclusive", example = "1")
+            @RequestParam(defaultValue = "1") long from,
+            @Parameter(description = "Upper bound, inclusive", example = "1000000")
+            @RequestParam(defaultValue = "1000000") long to,
+            @Parameter(description = "even, odd, prime or perfect-square", example = "prime")
+            @RequestParam String predicate) {
+        return ResponseEntity.ok(mathService.count(from, to, MathService.RangePredicate.parse(predicate)));
     }
 }
@@ -7,15 +7,34 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.dto.RosterJobStatus;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.dto.StudentStatisticsDto;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.service.StudentExportService;
+import ru.hogwarts.school.service.StudentImportService;
 import ru.hogwarts.school.service.StudentService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @Tag(name = "Student Management",
         description = "Operations related to student management")
@@ -23,9 +42,18 @@ import java.util.List;
 @RequestMapping("/students")
 public class StudentController {
     private final StudentService studentService;
+    private final StudentImportService studentImportService;
+    private final StudentExportService studentExportService;
+    private final ObjectMapper objectMapper;
 
-    public StudentController(StudentService studentService) {
+    public StudentController(StudentService studentService,
+                             StudentImportService studentImportService,
+                             StudentExportService studentExportService,
+                             ObjectMapper objectMapper) {
         this.studentService = studentService;
+        this.studentImportService = studentImportService;
+        this.studentExportService = studentExportService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Create a new student")
@@ -35,6 +63,26 @@ public class StudentController {
         return ResponseEntity.ok(createdStudent);
     }
 
+    @Operation(
+            summary = "Import students from CSV",
+            description = "Streams a CSV file with a header row containing name, age and optionally faculty_id. "
+                    + "Invalid rows are reported by line number and do not stop the import"
+    )
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportReport> importStudentsCsv(InputStream body) throws IOException {
+        return ResponseEntity.ok(studentImportService.importCsv(body));
+    }
+
+    @Operation(
+            summary = "Import students from JSON",
+            description = "Streams a JSON array of objects with name, age and optionally facultyId. "
+                    + "Invalid elements are reported by position and do not stop the import"
+    )
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ImportReport> importStudentsJson(InputStream body) throws IOException {
+        return ResponseEntity.ok(studentImportService.importJson(body));
+    }
+
     @Operation(summary = "Get student by ID")
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
@@ -57,22 +105,128 @@ public class StudentController {
         return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Get all students")
+    @Operation(
+            summary = "Get all students, or one page of them",
+            description = "Without paging parameters returns every student, ordered by id. "
+                    + "With afterId or limit returns up to limit students with id greater than afterId; "
+                    + "when the page is full a Link header with rel=\"next\" points to the following page. "
+                    + "Large rosters should be paged or read from /students/stream"
+    )
     @GetMapping
-    public ResponseEntity<List<Student>> getAllStudents() {
-        List<Student> students = studentService.getAllStudents();
-        return ResponseEntity.ok(students);
+    public ResponseEntity<List<StudentDto>> getAllStudents(
+            @Parameter(description = "Return students after this id, 0 when paging", example = "0")
+            @RequestParam(required = false) Long afterId,
+            @Parameter(description = "Page size when paging, 100 by default and at most "
+                    + StudentService.MAX_PAGE_SIZE, example = "100")
+            @RequestParam(required = false) Integer limit) {
+        if (afterId == null && limit == null) {
+            return ResponseEntity.ok(studentService.getAllStudents());
+        }
+        int pageSize = limit != null ? limit : 100;
+        List<StudentDto> students = studentService.getStudentsAfter(afterId != null ? afterId : 0, pageSize);
+        if (students.size() < pageSize) {
+            return ResponseEntity.ok(students);
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("afterId", students.get(students.size() - 1).getId())
+                .replaceQueryParam("limit", pageSize)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(students);
+    }
+
+    @Operation(
+            summary = "Stream all students",
+            description = "Streams every student as newline-delimited JSON, ordered by id. "
+                    + "The stream is not cut off by the async request timeout, however long it runs"
+    )
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllStudents() {
+        StreamingResponseBody body = out -> studentService.forEachStudent(student -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(student));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(
+            summary = "Export all students with faculty names",
+            description = "Streams every student joined with the name of its faculty straight from a database cursor, "
+                    + "ordered by id, as CSV or newline-delimited JSON. With gzip=true the body is gzip-encoded. "
+                    + "The stream is not cut off by the async request timeout, however long it runs"
+    )
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportStudents(
+            @Parameter(description = "Output format: csv or ndjson", example = "csv")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Compress the response with gzip", example = "false")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            if (csv) {
+                studentExportService.exportCsv(target);
+            } else {
+                studentExportService.exportNdjson(target);
+            }
+            if (target instanceof GZIPOutputStream compressed) {
+                compressed.finish();
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "students.csv" : "students.ndjson")
+                        .build()
+                        .toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @Operation(
+            summary = "Search students by name",
+            description = "Case-insensitive search by name prefix or by substring; give exactly one of them"
+    )
+    @GetMapping("/search")
+    public ResponseEntity<List<StudentDto>> searchStudents(
+            @Parameter(description = "Name prefix", example = "Her")
+            @RequestParam(required = false) String prefix,
+            @Parameter(description = "Name substring", example = "mion")
+            @RequestParam(required = false) String contains,
+            @Parameter(description = "Maximum number of results", example = "50")
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(studentService.searchStudents(prefix, contains, limit));
     }
 
     @Operation(summary = "Get students by age range")
     @GetMapping("/ageBetween")
-    public ResponseEntity<List<Student>> getStudentsByAgeBetween(
+    public ResponseEntity<List<StudentDto>> getStudentsByAgeBetween(
             @RequestParam int minAge,
             @RequestParam int maxAge) {
-        List<Student> students = studentService.getStudentsByAgeBetween(minAge, maxAge);
+        List<StudentDto> students = studentService.getStudentsByAgeBetween(minAge, maxAge);
         return ResponseEntity.ok(students);
     }
 
+    @Operation(summary = "Count students in an age range")
+    @GetMapping("/ageBetween/count")
+    public ResponseEntity<Long> countStudentsByAgeBetween(
+            @RequestParam int minAge,
+            @RequestParam int maxAge) {
+        return ResponseEntity.ok(studentService.countStudentsByAgeBetween(minAge, maxAge));
+    }
+
     @Operation(summary = "Get faculty by student ID")
     @GetMapping("/{id}/faculty")
     public ResponseEntity<Faculty> getFacultyByStudentId(
@@ -95,10 +249,19 @@ public class StudentController {
         return ResponseEntity.ok(averageAge);
     }
 
+    @Operation(
+            summary = "Get student statistics",
+            description = "Returns count and average age overall and per faculty from running totals"
+    )
+    @GetMapping("/statistics")
+    public ResponseEntity<StudentStatisticsDto> getStatistics() {
+        return ResponseEntity.ok(studentService.getStatistics());
+    }
+
     @Operation(summary = "Get the last five students")
     @GetMapping("/last-five")
-    public ResponseEntity<List<Student>> getLastFiveStudents() {
-        List<Student> students = studentService.findLastFiveStudents();
+    public ResponseEntity<List<StudentDto>> getLastFiveStudents() {
+        List<StudentDto> students = studentService.findLastFiveStudents();
         return ResponseEntity.ok(students);
     }
 
@@ -118,21 +281,44 @@ public class StudentController {
 
     @Operation(
             summary = "Print student names in parallel threads",
-            description = "Prints first 6 student names using parallel threads"
+            description = "Starts a roster job that prints every student name; the table is split into id ranges "
+                    + "that are paged through in parallel. "
+                    + "The Location header points to the job status"
     )
     @GetMapping("/print-parallel")
     public ResponseEntity<String> printParallel() {
-        studentService.printStudentsParallel();
-        return ResponseEntity.ok("Printing student names in parallel mode started");
+        RosterJobStatus job = studentService.printStudentsParallel();
+        return ResponseEntity.ok()
+                .location(jobLocation(job))
+                .body("Printing student names in parallel mode started");
     }
 
     @Operation(
             summary = "Print student names with synchronization",
-            description = "Prints first 6 student names using synchronized threads"
+            description = "Starts a roster job that prints every student name in id order, one page at a time. "
+                    + "The Location header points to the job status"
     )
     @GetMapping("/print-synchronized")
     public ResponseEntity<String> printSynchronized() {
-        studentService.printStudentsSynchronized();
-        return ResponseEntity.ok("Printing student names in synchronized mode started");
+        RosterJobStatus job = studentService.printStudentsSynchronized();
+        return ResponseEntity.ok()
+                .location(jobLocation(job))
+                .body("Printing student names in synchronized mode started");
+    }
+
+    @Operation(
+            summary = "Get roster job status",
+            description = "Returns progress and throughput of a roster job; only recent jobs are kept"
+    )
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<RosterJobStatus> getRosterJob(@PathVariable long id) {
+        return ResponseEntity.ok(studentService.getRosterJob(id));
+    }
+
+    private static URI jobLocation(RosterJobStatus job) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/students/jobs/{id}")
+                .buildAndExpand(job.getId())
+                .toUri();
     }
 }
@@ -0,0 +1,23 @@
+package ru.hogwarts.school.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+@Getter
+@Schema(description = "Faculty summary")
+public class FacultyDto {
+    @Schema(description = "Faculty id", example = "1")
+    private final Long id;
+
+    @Schema(description = "Faculty name", example = "Gryffindor")
+    private final String name;
+
+    @Schema(description = "Faculty color", example = "Red")
+    private final String color;
+
+    public FacultyDto(Long id, String name, String color) {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+    }
+}
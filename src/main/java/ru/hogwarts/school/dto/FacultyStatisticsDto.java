@@ -0,0 +1,23 @@
+package ru.hogwarts.school.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+@Getter
+@Schema(description = "Student statistics of one faculty")
+public class FacultyStatisticsDto {
+    @Schema(description = "Faculty id", example = "1")
+    private final Long facultyId;
+
+    @Schema(description = "Number of students", example = "42")
+    private final long count;
+
+    @Schema(description = "Average student age, null when the faculty is empty", example = "14.5")
+    private final Double averageAge;
+
+    public FacultyStatisticsDto(Long facultyId, long count, Double averageAge) {
+        this.facultyId = facultyId;
+        this.count = count;
+        this.averageAge = averageAge;
+    }
+}
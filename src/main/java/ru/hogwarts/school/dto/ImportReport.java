@@ -0,0 +1,40 @@
+package ru.hogwarts.school.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Schema(description = "Result of a bulk import")
+public class ImportReport {
+    @Schema(description = "Number of rows stored", example = "998")
+    private final long imported;
+
+    @Schema(description = "Number of rows rejected", example = "2")
+    private final long failed;
+
+    @Schema(description = "Rejected rows; only the first ones are listed when there are many")
+    private final List<RowError> errors;
+
+    public ImportReport(long imported, long failed, List<RowError> errors) {
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    @Getter
+    @Schema(description = "Rejected row")
+    public static class RowError {
+        @Schema(description = "Line of a CSV file or position in a JSON array, starting at 1", example = "17")
+        private final long row;
+
+        @Schema(description = "Why the row was rejected", example = "Age must be at least 11")
+        private final String message;
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+    }
+}
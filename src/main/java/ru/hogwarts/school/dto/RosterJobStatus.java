@@ -0,0 +1,67 @@
+package ru.hogwarts.school.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@Schema(description = "Progress of a roster batch job")
+public class RosterJobStatus {
+    @Schema(description = "Job id", example = "7")
+    private final long id;
+
+    @Schema(description = "What the job does", example = "print-parallel")
+    private final String name;
+
+    @Schema(description = "QUEUED, RUNNING, COMPLETED or FAILED", example = "RUNNING")
+    private final String state;
+
+    @Schema(description = "Number of partitions the roster was split into", example = "3")
+    private final int partitions;
+
+    @Schema(description = "Partitions processed so far", example = "1")
+    private final int completedPartitions;
+
+    @Schema(description = "Number of students in the job", example = "6")
+    private final long items;
+
+    @Schema(description = "Students processed so far", example = "2")
+    private final long processedItems;
+
+    @Schema(description = "Maximum number of partitions processed at the same time", example = "3")
+    private final int parallelism;
+
+    @Schema(description = "When the job was accepted")
+    private final Instant submittedAt;
+
+    @Schema(description = "When the first partition started, null while queued")
+    private final Instant startedAt;
+
+    @Schema(description = "When the job completed or failed, null while it runs")
+    private final Instant finishedAt;
+
+    @Schema(description = "Processed students per second since the start, null while queued", example = "1250.0")
+    private final Double itemsPerSecond;
+
+    @Schema(description = "Failure message of a failed job")
+    private final String error;
+
+    public RosterJobStatus(long id, String name, String state, int partitions, int completedPartitions,
+                           long items, long processedItems, int parallelism, Instant submittedAt,
+                           Instant startedAt, Instant finishedAt, Double itemsPerSecond, String error) {
+        this.id = id;
+        this.name = name;
+        this.state = state;
+        this.partitions = partitions;
+        this.completedPartitions = completedPartitions;
+        this.items = items;
+        this.processedItems = processedItems;
+        this.parallelism = parallelism;
+        this.submittedAt = submittedAt;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.itemsPerSecond = itemsPerSecond;
+        this.error = error;
+    }
+}
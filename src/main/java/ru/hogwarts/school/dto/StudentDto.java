@@ -0,0 +1,35 @@
+package ru.hogwarts.school.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+/**
+ * Student row for list endpoints. Built directly by JPQL constructor expressions, so
+ * reading a list never loads Student entities or their avatar associations.
+ */
+@Getter
+@Schema(description = "Student summary")
+public class StudentDto {
+    @Schema(description = "Student id", example = "1")
+    private final Long id;
+
+    @Schema(description = "Student name", example = "Harry Potter")
+    private final String name;
+
+    @Schema(description = "Student age", example = "15")
+    private final int age;
+
+    @Schema(description = "Faculty of the student, if any")
+    private final FacultyDto faculty;
+
+    public StudentDto(Long id, String name, int age, FacultyDto faculty) {
+        this.id = id;
+        this.name = name;
+        this.age = age;
+        this.faculty = faculty;
+    }
+
+    public StudentDto(Long id, String name, int age, Long facultyId, String facultyName, String facultyColor) {
+        this(id, name, age, facultyId != null ? new FacultyDto(facultyId, facultyName, facultyColor) : null);
+    }
+}
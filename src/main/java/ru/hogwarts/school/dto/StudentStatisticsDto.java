@@ -0,0 +1,25 @@
+package ru.hogwarts.school.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Schema(description = "Student statistics, overall and per faculty")
+public class StudentStatisticsDto {
+    @Schema(description = "Number of students", example = "120")
+    private final long count;
+
+    @Schema(description = "Average student age, null when there are no students", example = "14.2")
+    private final Double averageAge;
+
+    @Schema(description = "Breakdown by faculty")
+    private final List<FacultyStatisticsDto> faculties;
+
+    public StudentStatisticsDto(long count, Double averageAge, List<FacultyStatisticsDto> faculties) {
+        this.count = count;
+        this.averageAge = averageAge;
+        this.faculties = faculties;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.hogwarts.school.exception;
+
+public class ComputationTimeoutException extends RuntimeException {
+    public ComputationTimeoutException(String s) {
+        super(s);
+    }
+}
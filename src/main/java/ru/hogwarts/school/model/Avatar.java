@@ -1,11 +1,12 @@
 package ru.hogwarts.school.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.Arrays;
-import java.util.Objects;
+import java.time.Instant;
 
 @Setter
 @Getter
@@ -18,43 +19,38 @@ public class Avatar {
     private String filePath;
     private String mediaType;
     private long fileSize;
-    @Lob
-    private byte[] data;
+    private Instant updatedAt;
+    @JsonIgnore
+    @Column(name = "data_id")
+    private Long dataId;
 
     @OneToOne
     @JoinColumn(name = "student_id")
+    @JsonIgnoreProperties("avatar")
     private Student student;
 
     public Avatar() {
     }
 
-    public Avatar(Long id, String filePath, long fileSize, String mediaType, byte[] data, Student student) {
+    public Avatar(Long id, String filePath, long fileSize, String mediaType, Long dataId, Student student) {
         this.id = id;
         this.filePath = filePath;
         this.fileSize = fileSize;
         this.mediaType = mediaType;
-        this.data = data;
+        this.dataId = dataId;
         this.student = student;
     }
 
     @Override
-    public boolean equals(Object o) {
+    public final boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Avatar avatar = (Avatar) o;
-        return fileSize == avatar.fileSize
-                && Objects.equals(id, avatar.id)
-                && Objects.equals(filePath, avatar.filePath)
-                && Objects.equals(mediaType, avatar.mediaType)
-                && Arrays.equals(data, avatar.data)
-                && Objects.equals(student, avatar.student);
+        if (!(o instanceof Avatar avatar)) return false;
+        return Entities.sameEntity(this, getId(), avatar, avatar.getId());
     }
 
     @Override
-    public int hashCode() {
-        int result = Objects.hash(id, filePath, mediaType, fileSize, student);
-        result = 31 * result + Arrays.hashCode(data);
-        return result;
+    public final int hashCode() {
+        return Entities.effectiveClass(this).hashCode();
     }
 
     @Override
@@ -64,8 +60,8 @@ public class Avatar {
                 ", filePath='" + filePath + '\'' +
                 ", fileSize=" + fileSize +
                 ", mediaType='" + mediaType + '\'' +
-                ", data=" + Arrays.toString(data) +
-                ", student=" + (student != null ? student.getName() : "null") +
+                ", dataId=" + dataId +
+                ", studentId=" + (student != null ? student.getId() : null) +
                 '}';
     }
 }
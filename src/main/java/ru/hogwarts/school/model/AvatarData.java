@@ -0,0 +1,44 @@
+package ru.hogwarts.school.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.sql.Blob;
+
+@Setter
+@Getter
+@Entity
+@Table(name = "avatar_data")
+public class AvatarData {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true)
+    private String checksum;
+
+    private int refCount;
+
+    @Lob
+    private Blob data;
+
+    public AvatarData() {
+    }
+
+    public AvatarData(Long id, String checksum, int refCount, Blob data) {
+        this.id = id;
+        this.checksum = checksum;
+        this.refCount = refCount;
+        this.data = data;
+    }
+
+    @Override
+    public String toString() {
+        return "AvatarData{" +
+                "id=" + id +
+                ", checksum='" + checksum + '\'' +
+                ", refCount=" + refCount +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package ru.hogwarts.school.model;
+
+import org.hibernate.proxy.HibernateProxy;
+
+/**
+ * Helpers for entity {@code equals}/{@code hashCode}. Entities are equal when they are
+ * of the same persistent class and share a non-null id; neither method reads anything
+ * but the id, so comparing or hashing never initialises a proxy or a lazy collection.
+ */
+final class Entities {
+    private Entities() {
+    }
+
+    /**
+     * The persistent class of an entity, looking through Hibernate proxies without
+     * initialising them.
+     */
+    static Class<?> effectiveClass(Object entity) {
+        return entity instanceof HibernateProxy proxy
+                ? proxy.getHibernateLazyInitializer().getPersistentClass()
+                : entity.getClass();
+    }
+
+    static boolean sameEntity(Object entity, Long id, Object other, Long otherId) {
+        return effectiveClass(entity) == effectiveClass(other) && id != null && id.equals(otherId);
+    }
+}
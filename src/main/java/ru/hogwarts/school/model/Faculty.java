@@ -6,7 +6,6 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.List;
-import java.util.Objects;
 
 @Setter
 @Getter
@@ -34,19 +33,15 @@ public class Faculty {
     }
 
     @Override
-    public boolean equals(Object o) {
+    public final boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Faculty faculty = (Faculty) o;
-        return Objects.equals(id, faculty.id)
-                && Objects.equals(name, faculty.name)
-                && Objects.equals(color, faculty.color)
-                && Objects.equals(students, faculty.students);
+        if (!(o instanceof Faculty faculty)) return false;
+        return Entities.sameEntity(this, getId(), faculty, faculty.getId());
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(id, name, color, students);
+    public final int hashCode() {
+        return Entities.effectiveClass(this).hashCode();
     }
 
     @Override
@@ -55,7 +50,6 @@ public class Faculty {
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", color='" + color + '\'' +
-                ", students=" + (students != null ? students.size() : 0) +
                 '}';
     }
 }
@@ -1,19 +1,19 @@
 package ru.hogwarts.school.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.Objects;
-
 @Setter
 @Getter
 @Entity
 public class Student {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_seq")
+    @SequenceGenerator(name = "student_seq", sequenceName = "student_id_seq", allocationSize = 50)
     private Long id;
     @NotBlank(message = "Name is mandatory")
     private String name;
@@ -24,6 +24,7 @@ public class Student {
     private Faculty faculty;
 
     @OneToOne(cascade = CascadeType.ALL, mappedBy = "student")
+    @JsonIgnoreProperties("student")
     private Avatar avatar;
 
     public Student() {
@@ -38,19 +39,15 @@ public class Student {
     }
 
     @Override
-    public boolean equals(Object o) {
+    public final boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        Student student = (Student) o;
-        return age == student.age
-                && Objects.equals(id, student.id)
-                && Objects.equals(name, student.name)
-                && Objects.equals(faculty, student.faculty);
+        if (!(o instanceof Student student)) return false;
+        return Entities.sameEntity(this, getId(), student, student.getId());
     }
 
     @Override
-    public int hashCode() {
-        return Objects.hash(id, name, age, faculty);
+    public final int hashCode() {
+        return Entities.effectiveClass(this).hashCode();
     }
 
     @Override
@@ -59,7 +56,7 @@ public class Student {
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", age=" + age +
-                ", faculty=" + (faculty != null ? faculty.getName() : "null") +
+                ", facultyId=" + (faculty != null ? faculty.getId() : null) +
                 '}';
     }
 }
@@ -0,0 +1,35 @@
+package ru.hogwarts.school.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.hogwarts.school.model.AvatarData;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AvatarDataRepository extends JpaRepository<AvatarData, Long> {
+    Optional<AvatarData> findByChecksum(String checksum);
+
+    boolean existsByChecksum(String checksum);
+
+    List<AvatarData> findByRefCountLessThanEqual(int refCount);
+
+    @Modifying
+    @Query("UPDATE AvatarData d SET d.refCount = d.refCount + 1 WHERE d.id = :id")
+    int incrementRefCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE AvatarData d SET d.refCount = d.refCount - 1 WHERE d.id = :id")
+    int decrementRefCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE AvatarData d SET d.refCount = (SELECT COUNT(a) FROM Avatar a WHERE a.dataId = d.id)")
+    int reconcileRefCounts();
+
+    @Modifying
+    @Query("DELETE FROM AvatarData d WHERE d.id = :id AND d.refCount <= 0 " +
+            "AND NOT EXISTS (SELECT a FROM Avatar a WHERE a.dataId = d.id)")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
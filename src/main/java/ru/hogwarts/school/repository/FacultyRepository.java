@@ -1,10 +1,15 @@
 package ru.hogwarts.school.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.hogwarts.school.model.Faculty;
 
 import java.util.List;
 
 public interface FacultyRepository extends JpaRepository<Faculty, Long> {
     List<Faculty> findByNameIgnoreCaseOrColorIgnoreCase(String name, String color);
+
+    @Query("SELECT f.name FROM Faculty f ORDER BY LENGTH(f.name) DESC, f.id")
+    List<String> findNamesByLengthDesc(Limit limit);
 }
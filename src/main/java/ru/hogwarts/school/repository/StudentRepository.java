@@ -1,24 +1,110 @@
 package ru.hogwarts.school.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
-    List<Student> findByAgeBetween(int minAge, int maxAge);
+    String STUDENT_DTO = "SELECT new ru.hogwarts.school.dto.StudentDto(s.id, s.name, s.age, f.id, f.name, f.color) "
+            + "FROM Student s LEFT JOIN s.faculty f ";
 
-    @Query("SELECT COUNT(s) FROM Student s")
-    Integer countAllStudents();
+    @EntityGraph(attributePaths = {"faculty", "avatar"})
+    Optional<Student> findWithAssociationsById(Long id);
 
-    @Query("SELECT AVG(s.age) FROM Student s")
-    Double findAverageAge();
+    @Query("SELECT s.faculty FROM Student s WHERE s.id = :id")
+    Optional<Faculty> findFacultyByStudentId(@Param("id") Long id);
 
-    @Query("SELECT s FROM Student s ORDER BY s.id DESC")
-    List<Student> findLastFiveStudents(Pageable pageable);
+    @Query(STUDENT_DTO + "WHERE s.age BETWEEN :minAge AND :maxAge ORDER BY s.id")
+    List<StudentDto> findByAgeBetween(@Param("minAge") int minAge, @Param("maxAge") int maxAge);
 
-    @Query("SELECT s.name FROM Student s WHERE UPPER(s.name) LIKE 'А%' ORDER BY s.name")
-    List<String> findAllNamesStartingWithA();
+    /**
+     * Loads students picked by the age index, re-checking the age so that a stale index
+     * entry can not return a student outside the range.
+     */
+    @Query(STUDENT_DTO + "WHERE s.id IN :ids AND s.age BETWEEN :minAge AND :maxAge ORDER BY s.id")
+    List<StudentDto> findByIdInAndAgeBetween(@Param("ids") Collection<Long> ids,
+                                             @Param("minAge") int minAge,
+                                             @Param("maxAge") int maxAge);
+
+    long countByAgeBetween(int minAge, int maxAge);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT s.id AS id, s.age AS age FROM Student s ORDER BY s.id")
+    Stream<IdAndAge> streamIdsAndAges();
+
+    @Query(STUDENT_DTO + "WHERE s.id > :afterId ORDER BY s.id")
+    List<StudentDto> findPageAfter(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("SELECT MIN(s.id) AS firstId, MAX(s.id) AS lastId FROM Student s")
+    IdRange findIdRange();
+
+    @Query("SELECT s.id AS id, s.name AS name FROM Student s WHERE s.id > :afterId AND s.id <= :lastId ORDER BY s.id")
+    List<IdAndName> findNamesBetween(@Param("afterId") long afterId, @Param("lastId") long lastId, Limit limit);
+
+    @Query(STUDENT_DTO + "WHERE s.faculty.id = :facultyId")
+    Slice<StudentDto> findByFacultyId(@Param("facultyId") Long facultyId, Pageable pageable);
+
+    @Query(STUDENT_DTO + "ORDER BY s.id")
+    List<StudentDto> findAllOrderedById();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(STUDENT_DTO + "ORDER BY s.id")
+    Stream<StudentDto> streamAllOrderedById();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT s.id AS id, s.faculty.id AS facultyId, s.age AS age FROM Student s")
+    Stream<IdFacultyAndAge> streamIdsFacultiesAndAges();
+
+    @Query(STUDENT_DTO + "ORDER BY s.id DESC")
+    List<StudentDto> findLastFiveStudents(Pageable pageable);
+
+    @Query("SELECT s.name FROM Student s ORDER BY s.id")
+    List<String> findNamesOrderedById(Limit limit);
+
+    @Query("SELECT s.name FROM Student s WHERE UPPER(s.name) LIKE :pattern ESCAPE '\\' ORDER BY UPPER(s.name), s.id")
+    List<String> findNamesByUpperNameLike(@Param("pattern") String pattern);
+
+    @Query(STUDENT_DTO + "WHERE UPPER(s.name) LIKE :pattern ESCAPE '\\' ORDER BY UPPER(s.name), s.id")
+    List<StudentDto> findByUpperNameLike(@Param("pattern") String pattern, Limit limit);
+
+    interface IdFacultyAndAge {
+        long getId();
+
+        Long getFacultyId();
+
+        int getAge();
+    }
+
+    interface IdAndAge {
+        long getId();
+
+        int getAge();
+    }
+
+    interface IdAndName {
+        long getId();
+
+        String getName();
+    }
+
+    interface IdRange {
+        Long getFirstId();
+
+        Long getLastId();
+    }
 }
@@ -0,0 +1,84 @@
+package ru.hogwarts.school.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.model.AvatarData;
+import ru.hogwarts.school.repository.AvatarDataRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@Slf4j
+@Component
+public class AvatarContentCollector {
+    private final AvatarDataRepository avatarDataRepository;
+    private final AvatarContentStore avatarContentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration gracePeriod;
+
+    @Autowired
+    public AvatarContentCollector(AvatarDataRepository avatarDataRepository,
+                                  AvatarContentStore avatarContentStore,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${avatar.gc.grace-period:PT1H}") Duration gracePeriod) {
+        this.avatarDataRepository = avatarDataRepository;
+        this.avatarContentStore = avatarContentStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.gracePeriod = gracePeriod;
+    }
+
+    @Scheduled(fixedDelayString = "${avatar.gc.fixed-delay:PT1H}", initialDelayString = "${avatar.gc.fixed-delay:PT1H}")
+    public void collectOrphanedContent() {
+        log.info("Was invoked method for collect orphaned avatar content");
+        transactionTemplate.executeWithoutResult(status -> avatarDataRepository.reconcileRefCounts());
+
+        int deletedRows = 0;
+        for (AvatarData orphan : avatarDataRepository.findByRefCountLessThanEqual(0)) {
+            Integer deleted = transactionTemplate.execute(status ->
+                    avatarDataRepository.deleteIfUnreferenced(orphan.getId()));
+            if (deleted != null && deleted == 1) {
+                deletedRows++;
+                deleteContent(orphan.getChecksum());
+            }
+        }
+
+        int deletedFiles = 0;
+        Instant threshold = Instant.now().minus(gracePeriod);
+        try {
+            avatarContentStore.deleteTemporaryFilesOlderThan(threshold);
+            List<String> checksums = avatarContentStore.findChecksumsOlderThan(threshold);
+            for (String checksum : checksums) {
+                if (deleteContent(checksum)) {
+                    deletedFiles++;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to sweep avatar storage: {}", e.getMessage(), e);
+        }
+        log.info("Collected {} orphaned avatar data rows and {} unreferenced files", deletedRows, deletedFiles);
+    }
+
+    /**
+     * Deletes the file unless an upload in flight or an avatar_data row still refers to it.
+     * A concurrent upload of the same bytes may have inserted a new row since the old one
+     * was deleted.
+     */
+    private boolean deleteContent(String checksum) {
+        if (checksum == null) {
+            return false;
+        }
+        try {
+            return avatarContentStore.deleteIfUnreferenced(checksum, avatarDataRepository::existsByChecksum);
+        } catch (IOException e) {
+            log.warn("Failed to delete avatar content {}: {}", checksum, e.getMessage());
+            return false;
+        }
+    }
+}
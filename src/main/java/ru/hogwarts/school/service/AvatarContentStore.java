@@ -0,0 +1,175 @@
+package ru.hogwarts.school.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed avatar files. A checksum returned by {@link #store} stays pinned until
+ * {@link #release} is called, so that the collector cannot delete a file that an upload
+ * is about to reference but has not recorded in the database yet.
+ */
+@Slf4j
+@Component
+public class AvatarContentStore {
+    private static final Pattern CHECKSUM_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Map<String, Integer> pins = new HashMap<>();
+
+    public AvatarContentStore(@Value("${avatar.storage.dir:avatars}") String root) {
+        this.root = Path.of(root);
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    public StoredContent store(MultipartFile file) throws IOException {
+        Path tmpDir = root.resolve("tmp");
+        Files.createDirectories(tmpDir);
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String checksum = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(checksum);
+            synchronized (lockFor(checksum)) {
+                if (Files.exists(target)) {
+                    log.debug("Avatar content {} already stored", checksum);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                pin(checksum);
+            }
+            return new StoredContent(checksum, size, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Unpins content returned by {@link #store}, once the upload has either recorded it in
+     * the database or failed.
+     */
+    public void release(String checksum) {
+        synchronized (lockFor(checksum)) {
+            synchronized (pins) {
+                pins.computeIfPresent(checksum, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+
+    /**
+     * Deletes the content unless an upload has it pinned or {@code referenced} says it is
+     * still in use. Both checks and the delete happen under the lock {@link #store} takes,
+     * so an upload either finds the file gone and writes it again, or keeps it.
+     */
+    public boolean deleteIfUnreferenced(String checksum, Predicate<String> referenced) throws IOException {
+        synchronized (lockFor(checksum)) {
+            synchronized (pins) {
+                if (pins.containsKey(checksum)) {
+                    return false;
+                }
+            }
+            if (referenced.test(checksum)) {
+                return false;
+            }
+            delete(checksum);
+            return true;
+        }
+    }
+
+    public Path resolve(String checksum) {
+        return root.resolve(checksum.substring(0, 2)).resolve(checksum);
+    }
+
+    private void delete(String checksum) throws IOException {
+        Path content = resolve(checksum);
+        if (Files.isDirectory(content.getParent())) {
+            try (DirectoryStream<Path> variants = Files.newDirectoryStream(content.getParent(), checksum + "_*")) {
+                for (Path variant : variants) {
+                    Files.deleteIfExists(variant);
+                }
+            }
+        }
+        Files.deleteIfExists(content);
+    }
+
+    public List<String> findChecksumsOlderThan(Instant threshold) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(path -> CHECKSUM_PATTERN.matcher(path.getFileName().toString()).matches())
+                    .filter(path -> isOlderThan(path, threshold))
+                    .map(path -> path.getFileName().toString())
+                    .toList();
+        }
+    }
+
+    public void deleteTemporaryFilesOlderThan(Instant threshold) throws IOException {
+        Path tmpDir = root.resolve("tmp");
+        if (!Files.isDirectory(tmpDir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(tmpDir)) {
+            for (Path path : files.filter(path -> isOlderThan(path, threshold)).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private void pin(String checksum) {
+        synchronized (pins) {
+            pins.merge(checksum, 1, Integer::sum);
+        }
+    }
+
+    private Object lockFor(String checksum) {
+        return locks[Math.floorMod(checksum.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static boolean isOlderThan(Path path, Instant threshold) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(threshold);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record StoredContent(String checksum, long size, Path path) {
+    }
+}
@@ -1,29 +1,55 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.jdbc.BlobProxy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import ru.hogwarts.school.config.CacheConfig;
+import ru.hogwarts.school.config.MetricsConfig;
 import ru.hogwarts.school.exception.EntityNotFoundException;
 import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.AvatarData;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarDataRepository;
 import ru.hogwarts.school.repository.AvatarRepository;
 import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.AvatarContentStore.StoredContent;
+import ru.hogwarts.school.service.OffHeapAvatarCache.CachedAvatar;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class AvatarService {
     private static final long MAX_FILE_SIZE = 1024 * 300; // 300KB
     private static final List<String> ALLOWED_MIME_TYPES = List.of(
@@ -39,12 +65,40 @@ public class AvatarService {
     );
 
     private final AvatarRepository avatarRepository;
+    private final AvatarDataRepository avatarDataRepository;
     private final StudentRepository studentRepository;
+    private final AvatarContentStore avatarContentStore;
+    private final AvatarThumbnailService avatarThumbnailService;
+    private final CacheManager cacheManager;
+    private final OffHeapAvatarCache offHeapAvatarCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Semaphore writerPermits;
+    private final Duration writerAcquireTimeout;
 
     @Autowired
-    public AvatarService(AvatarRepository avatarRepository, StudentRepository studentRepository) {
+    public AvatarService(AvatarRepository avatarRepository,
+                         AvatarDataRepository avatarDataRepository,
+                         StudentRepository studentRepository,
+                         AvatarContentStore avatarContentStore,
+                         AvatarThumbnailService avatarThumbnailService,
+                         CacheManager cacheManager,
+                         ObjectProvider<OffHeapAvatarCache> offHeapAvatarCache,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${avatar.writer.max-concurrency:2}") int writerConcurrency,
+                         @Value("${avatar.writer.acquire-timeout:PT1S}") Duration writerAcquireTimeout) {
         this.avatarRepository = avatarRepository;
+        this.avatarDataRepository = avatarDataRepository;
         this.studentRepository = studentRepository;
+        this.avatarContentStore = avatarContentStore;
+        this.avatarThumbnailService = avatarThumbnailService;
+        this.cacheManager = cacheManager;
+        this.offHeapAvatarCache = offHeapAvatarCache.getIfAvailable();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.writerPermits = new Semaphore(writerConcurrency);
+        this.writerAcquireTimeout = writerAcquireTimeout;
     }
 
     public Avatar uploadAvatar(Long studentId, MultipartFile avatar) throws IOException {
@@ -58,21 +112,19 @@ public class AvatarService {
                     return new EntityNotFoundException("Student not found with id: " + studentId);
                 });
 
-        String safeFilename = generateSafeFilename(studentId, avatar.getOriginalFilename());
-        String filePath = "avatars/" + safeFilename;
+        StoredContent content = avatarContentStore.store(avatar);
+        log.debug("Stored avatar content {} ({} bytes)", content.checksum(), content.size());
 
-        Path path = Paths.get(filePath);
-        Files.createDirectories(path.getParent());
-        Files.write(path, avatar.getBytes());
-
-        Avatar studentAvatar = new Avatar();
-        studentAvatar.setFilePath(filePath);
-        studentAvatar.setFileSize(avatar.getSize());
-        studentAvatar.setMediaType(avatar.getContentType());
-        studentAvatar.setData(avatar.getBytes());
-        studentAvatar.setStudent(student);
-
-        return avatarRepository.save(studentAvatar);
+        try {
+            Avatar saved = persistBounded(student, avatar.getContentType(), content);
+            evictCachedAvatar(studentId);
+            avatarThumbnailService.generateThumbnailsAsync(content.path(), saved.getMediaType());
+            return saved;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            avatarContentStore.release(content.checksum());
+        }
     }
 
     @Async("taskExecutor")
@@ -86,7 +138,7 @@ public class AvatarService {
         }
     }
 
-    @Cacheable(value = "avatars", key = "#studentId")
+    @Cacheable(value = CacheConfig.AVATARS_CACHE, key = "#studentId")
     public Avatar getAvatarByStudentId(Long studentId) {
         log.info("Getting avatar for student id: {}", studentId);
         Student student = studentRepository.findById(studentId)
@@ -102,6 +154,54 @@ public class AvatarService {
                 });
     }
 
+    /**
+     * Loader of the avatars cache, for misses and refresh-ahead reloads. Returns null when the
+     * student has no avatar, which drops the entry.
+     */
+    @Transactional(readOnly = true)
+    public Avatar loadAvatar(Long studentId) {
+        log.debug("Loading avatar for student id: {} into the cache", studentId);
+        return avatarRepository.findByStudentId(studentId).orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    public byte[] getAvatarData(Avatar avatar) {
+        log.info("Getting avatar data for avatar id: {}", avatar.getId());
+        if (avatar.getDataId() == null) {
+            log.error("Avatar data not found for avatar id: {}", avatar.getId());
+            throw new EntityNotFoundException("Avatar data not found for avatar id: " + avatar.getId());
+        }
+        Blob blob = avatarDataRepository.findById(avatar.getDataId())
+                .map(AvatarData::getData)
+                .orElseThrow(() -> {
+                    log.error("Avatar data not found for avatar id: {}", avatar.getId());
+                    return new EntityNotFoundException("Avatar data not found for avatar id: " + avatar.getId());
+                });
+        try {
+            return blob.getBytes(1, (int) blob.length());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to read avatar data for avatar id: " + avatar.getId(), e);
+        }
+    }
+
+    public Optional<CachedAvatar> getCachedAvatarData(Avatar avatar) {
+        if (offHeapAvatarCache == null || avatar.getDataId() == null) {
+            return Optional.empty();
+        }
+        Optional<CachedAvatar> cached = offHeapAvatarCache.acquire(avatar.getDataId());
+        if (cached.isEmpty()) {
+            log.info("Loading avatar data for avatar id {} into off-heap cache", avatar.getId());
+            readOnlyTransactionTemplate.executeWithoutResult(status -> loadIntoOffHeapCache(avatar.getDataId()));
+            cached = offHeapAvatarCache.acquire(avatar.getDataId());
+        }
+        return cached;
+    }
+
+    public Optional<Path> getAvatarThumbnail(Avatar avatar, int size) {
+        log.info("Getting avatar thumbnail of size {} for avatar id: {}", size, avatar.getId());
+        return avatarThumbnailService.findThumbnail(Path.of(avatar.getFilePath()), avatar.getMediaType(), size);
+    }
+
     public Page<Avatar> getAvatars(int page, int size) {
         log.info("Getting avatars page: {}, size: {}", page, size);
         return avatarRepository.findAll(PageRequest.of(page, size));
@@ -125,8 +225,82 @@ public class AvatarService {
         }
     }
 
-    private String generateSafeFilename(Long studentId, String originalFilename) {
-        String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        return "avatar_" + studentId + "_" + UUID.randomUUID() + extension;
+    private void loadIntoOffHeapCache(Long dataId) {
+        avatarDataRepository.findById(dataId).ifPresent(avatarData -> {
+            Blob blob = avatarData.getData();
+            try (InputStream in = blob.getBinaryStream()) {
+                offHeapAvatarCache.put(dataId, in, Math.toIntExact(blob.length()));
+            } catch (IOException | SQLException e) {
+                log.warn("Failed to load avatar data {} into off-heap cache: {}", dataId, e.getMessage());
+            }
+        });
+    }
+
+    private void evictCachedAvatar(Long studentId) {
+        Cache cache = cacheManager.getCache(CacheConfig.AVATARS_CACHE);
+        if (cache != null) {
+            cache.evict(studentId);
+        }
+    }
+
+    /**
+     * Runs the database write on the calling thread, at most {@code avatar.writer.max-concurrency}
+     * at a time, so a burst of uploads can not take every connection in the pool. An upload
+     * that can not get a turn within {@code avatar.writer.acquire-timeout} is rejected with 503.
+     */
+    private Avatar persistBounded(Student student, String mediaType, StoredContent content) {
+        try {
+            if (!writerPermits.tryAcquire(writerAcquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                log.warn("Avatar writer is saturated, rejecting upload for student id: {}", student.getId());
+                throw new RejectedExecutionException("Avatar writer is saturated");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for the avatar writer", e);
+        }
+        try {
+            return persistAvatar(student, mediaType, content);
+        } finally {
+            writerPermits.release();
+        }
+    }
+
+    private Avatar persistAvatar(Student student, String mediaType, StoredContent content) {
+        try {
+            return transactionTemplate.execute(status -> saveAvatar(student, mediaType, content));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Avatar content {} was stored concurrently, retrying", content.checksum());
+            return transactionTemplate.execute(status -> saveAvatar(student, mediaType, content));
+        }
+    }
+
+    private Avatar saveAvatar(Student student, String mediaType, StoredContent content) {
+        // The row may be collected between the lookup and the increment; then insert a new one.
+        AvatarData avatarData = avatarDataRepository.findByChecksum(content.checksum()).orElse(null);
+        if (avatarData == null || avatarDataRepository.incrementRefCount(avatarData.getId()) != 1) {
+            avatarData = insertAvatarData(content);
+        }
+
+        Avatar studentAvatar = avatarRepository.findByStudentId(student.getId())
+                .orElseGet(Avatar::new);
+        if (studentAvatar.getDataId() != null) {
+            avatarDataRepository.decrementRefCount(studentAvatar.getDataId());
+        }
+        studentAvatar.setFilePath(content.path().toString());
+        studentAvatar.setFileSize(content.size());
+        studentAvatar.setMediaType(mediaType);
+        studentAvatar.setDataId(avatarData.getId());
+        studentAvatar.setUpdatedAt(Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        studentAvatar.setStudent(student);
+        return avatarRepository.save(studentAvatar);
+    }
+
+    private AvatarData insertAvatarData(StoredContent content) {
+        try (InputStream in = Files.newInputStream(content.path())) {
+            return avatarDataRepository.saveAndFlush(
+                    new AvatarData(null, content.checksum(), 1, BlobProxy.generateProxy(in, content.size())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,168 @@
+package ru.hogwarts.school.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+@Slf4j
+@Service
+public class AvatarThumbnailService {
+    private final List<Integer> sizes;
+    private final Executor avatarThumbnailExecutor;
+    private final long maxPixels;
+    private final Set<Path> inProgress = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public AvatarThumbnailService(@Value("${avatar.thumbnail.sizes:64,256}") List<Integer> sizes,
+                                  @Qualifier("avatarThumbnailExecutor") Executor avatarThumbnailExecutor,
+                                  @Value("${avatar.thumbnail.max-pixels:25000000}") long maxPixels) {
+        this.sizes = List.copyOf(sizes);
+        this.avatarThumbnailExecutor = avatarThumbnailExecutor;
+        this.maxPixels = maxPixels;
+    }
+
+    public List<Integer> getSizes() {
+        return sizes;
+    }
+
+    public void generateThumbnailsAsync(Path original, String mediaType) {
+        if (!inProgress.add(original)) {
+            return;
+        }
+        try {
+            avatarThumbnailExecutor.execute(() -> {
+                try {
+                    generateThumbnails(original, mediaType);
+                } finally {
+                    inProgress.remove(original);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(original);
+            log.warn("Thumbnail executor is saturated, skipping thumbnails for {}", original);
+        }
+    }
+
+    public Optional<Path> findThumbnail(Path original, String mediaType, int size) {
+        if (!sizes.contains(size)) {
+            log.warn("Unsupported avatar size: {}", size);
+            throw new IllegalArgumentException("Unsupported avatar size " + size + ". Allowed: " + sizes);
+        }
+        Path thumbnail = thumbnailPath(original, size);
+        if (Files.isReadable(thumbnail)) {
+            return Optional.of(thumbnail);
+        }
+        if (Files.isReadable(original)) {
+            generateThumbnailsAsync(original, mediaType);
+        }
+        return Optional.empty();
+    }
+
+    public static Path thumbnailPath(Path original, int size) {
+        return original.resolveSibling(original.getFileName() + "_" + size);
+    }
+
+    void generateThumbnails(Path original, String mediaType) {
+        String format = formatName(mediaType);
+        try {
+            BufferedImage image = decode(original);
+            if (image == null) {
+                return;
+            }
+            for (int size : sizes) {
+                Path thumbnail = thumbnailPath(original, size);
+                if (Files.exists(thumbnail)) {
+                    continue;
+                }
+                Path tmp = Files.createTempFile(original.getParent(), "thumbnail-", ".tmp");
+                try {
+                    if (Math.max(image.getWidth(), image.getHeight()) <= size) {
+                        Files.copy(original, tmp, StandardCopyOption.REPLACE_EXISTING);
+                    } else {
+                        ImageIO.write(scale(image, size, format), format, tmp.toFile());
+                    }
+                    Files.move(tmp, thumbnail, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            log.debug("Generated thumbnails {} for {}", sizes, original);
+        } catch (IOException e) {
+            log.error("Failed to generate thumbnails for {}: {}", original, e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes the image unless its header declares more than {@code avatar.thumbnail.max-pixels}
+     * pixels. A few hundred kilobytes of PNG can claim gigapixels, so the byte limit on uploads
+     * does not bound the memory a full decode would take.
+     */
+    private BufferedImage decode(Path original) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                log.warn("Can not decode avatar image {}, skipping thumbnails", original);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Avatar image {} has {} pixels, more than {}, skipping thumbnails", original, pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int size, String format) {
+        double ratio = (double) size / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        int type = "jpeg".equals(format) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private static String formatName(String mediaType) {
+        return switch (mediaType) {
+            case "image/jpeg" -> "jpeg";
+            case "image/gif" -> "gif";
+            default -> "png";
+        };
+    }
+}
@@ -1,24 +1,36 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.StudentDto;
 import ru.hogwarts.school.exception.EntityNotFoundException;
 import ru.hogwarts.school.model.Faculty;
-import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
 
-import java.util.Comparator;
 import java.util.List;
 
 @Service
 @Slf4j
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class FacultyService {
+    public static final int MAX_ROSTER_PAGE_SIZE = 1000;
+    private static final List<String> ROSTER_SORT_FIELDS = List.of("id", "name", "age");
+
     private final FacultyRepository facultyRepository;
+    private final StudentRepository studentRepository;
 
     @Autowired
-    public FacultyService(FacultyRepository facultyRepository) {
+    public FacultyService(FacultyRepository facultyRepository, StudentRepository studentRepository) {
         this.facultyRepository = facultyRepository;
+        this.studentRepository = studentRepository;
     }
 
     public Faculty createFaculty(String name, String color) {
@@ -65,21 +77,36 @@ public class FacultyService {
         return facultyRepository.findByNameIgnoreCaseOrColorIgnoreCase(nameOrColor, nameOrColor);
     }
 
-    public List<Student> getStudentsByFacultyId(Long facultyId) {
-        log.info("Was invoked method for get students by faculty id: {}", facultyId);
-        Faculty faculty = facultyRepository.findById(facultyId)
-                .orElseThrow(() -> {
-                    log.error("Faculty not found with id: {}", facultyId);
-                    return new EntityNotFoundException("Faculty not found with id: " + facultyId);
-                });
-        return faculty.getStudents();
+    /**
+     * One page of a faculty roster, sorted by {@code sortBy} with the student id as a
+     * tie-breaker so that pages stay stable.
+     */
+    public Slice<StudentDto> getStudentsByFacultyId(Long facultyId, int page, int size,
+                                                    String sortBy, String direction) {
+        log.info("Was invoked method for get students by faculty id: {}, page: {}, size: {}, sort: {} {}",
+                facultyId, page, size, sortBy, direction);
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (size < 1 || size > MAX_ROSTER_PAGE_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_ROSTER_PAGE_SIZE);
+        }
+        if (!ROSTER_SORT_FIELDS.contains(sortBy)) {
+            throw new IllegalArgumentException("Cannot sort students by " + sortBy
+                    + ", expected one of " + ROSTER_SORT_FIELDS);
+        }
+        Sort sort = Sort.by(Sort.Direction.fromString(direction), sortBy).and(Sort.by("id"));
+        if (!facultyRepository.existsById(facultyId)) {
+            log.error("Faculty not found with id: {}", facultyId);
+            throw new EntityNotFoundException("Faculty not found with id: " + facultyId);
+        }
+        return studentRepository.findByFacultyId(facultyId, PageRequest.of(page, size, sort));
     }
 
     public String getLongestFacultyName() {
         log.info("Finding faculty with longest name");
-        return facultyRepository.findAll().stream()
-                .map(Faculty::getName)
-                .max(Comparator.comparingInt(String::length))
+        return facultyRepository.findNamesByLengthDesc(Limit.of(1)).stream()
+                .findFirst()
                 .orElse("No faculties found");
     }
 }
\ No newline at end of file
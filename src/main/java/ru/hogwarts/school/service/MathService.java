@@ -1,19 +1,250 @@
 package ru.hogwarts.school.service;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.stream.LongStream;
+import ru.hogwarts.school.exception.ComputationTimeoutException;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Range reductions over caller-supplied bounds. Ranges are split in halves by a
+ * {@link RecursiveTask} on a dedicated, size-limited {@link ForkJoinPool}, so heavy
+ * requests never run on the common pool or the request threads. Results are memoized,
+ * identical requests in flight share one computation, and a computation that outlives
+ * {@code math.timeout} is abandoned.
+ */
 @Service
 @Slf4j
 public class MathService {
-    private static final long LIMIT = 1_000_000L;
-
-    public long calculateSum() {
-        log.info("Calculating sum from 1 to 1,000,000 using parallel streams");
-        return LongStream.iterate(1, a -> a + 1)
-                .limit(LIMIT)
-                .parallel()
-                .reduce(0, Long::sum);
+    private static final long LEAF_SIZE = 1 << 14;
+    private static final long DEADLINE_CHECK_MASK = 1023;
+
+    public enum Operation { SUM, SUM_OF_SQUARES, COUNT }
+
+    public enum RangePredicate {
+        EVEN, ODD, PRIME, PERFECT_SQUARE;
+
+        public static RangePredicate parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown predicate: " + value
+                        + ", expected one of " + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+            }
+        }
+
+        boolean test(long n, long deadline) {
+            return switch (this) {
+                case EVEN -> (n & 1) == 0;
+                case ODD -> (n & 1) != 0;
+                case PRIME -> isPrime(n, deadline);
+                case PERFECT_SQUARE -> isPerfectSquare(n);
+            };
+        }
+    }
+
+    private record Request(Operation operation, long from, long to, RangePredicate predicate) {
+    }
+
+    private final ForkJoinPool pool;
+    private final AsyncCache<Request, Long> results;
+    private final Semaphore permits;
+    private final Duration timeout;
+    private final long maxRangeSize;
+
+    public MathService(@Qualifier("mathForkJoinPool") ForkJoinPool pool,
+                       @Value("${math.cache.maximum-size:1000}") long cacheSize,
+                       @Value("${math.max-concurrent-requests:4}") int maxConcurrentRequests,
+                       @Value("${math.timeout:PT5S}") Duration timeout,
+                       @Value("${math.max-range-size:1000000000}") long maxRangeSize) {
+        this.pool = pool;
+        this.results = cacheSize > 0 ? Caffeine.newBuilder().maximumSize(cacheSize).buildAsync() : null;
+        this.permits = new Semaphore(maxConcurrentRequests);
+        this.timeout = timeout;
+        this.maxRangeSize = maxRangeSize;
+    }
+
+    public long sum(long from, long to) {
+        log.info("Was invoked method for sum from {} to {}", from, to);
+        return compute(new Request(Operation.SUM, from, to, null));
+    }
+
+    public long sumOfSquares(long from, long to) {
+        log.info("Was invoked method for sum of squares from {} to {}", from, to);
+        return compute(new Request(Operation.SUM_OF_SQUARES, from, to, null));
+    }
+
+    public long count(long from, long to, RangePredicate predicate) {
+        log.info("Was invoked method for count {} from {} to {}", predicate, from, to);
+        return compute(new Request(Operation.COUNT, from, to, predicate));
+    }
+
+    private long compute(Request request) {
+        validate(request);
+        CompletableFuture<Long> result = results != null
+                ? results.get(request, (key, executor) -> start(key))
+                : start(request);
+        try {
+            return result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            // Drops the entry from the cache; the task itself stops at its deadline and
+            // only then gives its permit back.
+            result.cancel(false);
+            throw timedOut(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for " + request.operation());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw timedOut(request);
+            }
+            if (e.getCause() instanceof ArithmeticException) {
+                throw new IllegalArgumentException("Result of " + request.operation()
+                        + " from " + request.from() + " to " + request.to() + " does not fit into a 64-bit integer");
+            }
+            throw new IllegalStateException("Computation failed", e.getCause());
+        }
+    }
+
+    private CompletableFuture<Long> start(Request request) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Math engine is busy");
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            return CompletableFuture
+                    .supplyAsync(() -> new RangeTask(request, request.from(), request.to(), deadline).invoke(), pool)
+                    .whenComplete((value, failure) -> permits.release());
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void validate(Request request) {
+        if (request.from() > request.to()) {
+            throw new IllegalArgumentException("from must not be greater than to");
+        }
+        long size;
+        try {
+            size = Math.addExact(Math.subtractExact(request.to(), request.from()), 1);
+        } catch (ArithmeticException e) {
+            size = Long.MAX_VALUE;
+        }
+        if (size > maxRangeSize) {
+            throw new IllegalArgumentException("Range must contain at most " + maxRangeSize + " numbers");
+        }
+    }
+
+    private ComputationTimeoutException timedOut(Request request) {
+        log.warn("{} from {} to {} did not finish within {}", request.operation(), request.from(), request.to(), timeout);
+        return new ComputationTimeoutException("Computation did not finish within " + timeout.toMillis() + " ms");
+    }
+
+    private static final class RangeTask extends RecursiveTask<Long> {
+        private final Request request;
+        private final long from;
+        private final long to;
+        private final long deadline;
+
+        RangeTask(Request request, long from, long to, long deadline) {
+            this.request = request;
+            this.from = from;
+            this.to = to;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Long compute() {
+            checkDeadline(deadline);
+            if (to - from < LEAF_SIZE) {
+                return leaf();
+            }
+            long middle = from + (to - from) / 2;
+            RangeTask left = new RangeTask(request, from, middle, deadline);
+            RangeTask right = new RangeTask(request, middle + 1, to, deadline);
+            left.fork();
+            long rightResult = right.compute();
+            long leftResult = left.join();
+            return Math.addExact(leftResult, rightResult);
+        }
+
+        private long leaf() {
+            long result = 0;
+            for (long n = from; n <= to; n++) {
+                // A single predicate test may take seconds for large n, so counting checks
+                // the deadline on every element rather than every 1024th.
+                if (request.operation() == Operation.COUNT || (n & DEADLINE_CHECK_MASK) == 0) {
+                    checkDeadline(deadline);
+                }
+                result = switch (request.operation()) {
+                    case SUM -> Math.addExact(result, n);
+                    case SUM_OF_SQUARES -> Math.addExact(result, Math.multiplyExact(n, n));
+                    case COUNT -> request.predicate().test(n, deadline) ? result + 1 : result;
+                };
+                if (n == Long.MAX_VALUE) {
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static void checkDeadline(long deadline) {
+        if (System.nanoTime() - deadline > 0) {
+            throw new CancellationException("Deadline exceeded");
+        }
+    }
+
+    private static boolean isPrime(long n, long deadline) {
+        if (n < 2) {
+            return false;
+        }
+        if (n < 4) {
+            return true;
+        }
+        if (n % 2 == 0 || n % 3 == 0) {
+            return false;
+        }
+        for (long d = 5, i = 0; d <= n / d; d += 6, i++) {
+            if (n % d == 0 || n % (d + 2) == 0) {
+                return false;
+            }
+            if ((i & DEADLINE_CHECK_MASK) == 0) {
+                checkDeadline(deadline);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPerfectSquare(long n) {
+        if (n < 0) {
+            return false;
+        }
+        // floor(sqrt(Long.MAX_VALUE)); larger roots would overflow when squared
+        long maxRoot = 3_037_000_499L;
+        long root = Math.min((long) Math.sqrt((double) n), maxRoot);
+        while (root * root > n) {
+            root--;
+        }
+        while (root < maxRoot && (root + 1) * (root + 1) <= n) {
+            root++;
+        }
+        return root * root == n;
     }
 }
@@ -0,0 +1,340 @@
+package ru.hogwarts.school.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "avatar.offheap.enabled", havingValue = "true")
+public class OffHeapAvatarCache implements MeterBinder {
+    private static final long MAX_SLAB_BYTES = 1L << 30;
+
+    private final int pageSize;
+    private final int pagesPerSlab;
+    private final int maxEntryBytes;
+    private final ByteBuffer[] slabs;
+    private final int[] freePages;
+    private int freeCount;
+
+    private final Path backingFile;
+    private final LinkedHashMap<Long, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public OffHeapAvatarCache(@Value("${avatar.offheap.capacity:64MB}") DataSize capacity,
+                              @Value("${avatar.offheap.page-size:8KB}") DataSize pageSize,
+                              @Value("${avatar.offheap.max-entry-size:1MB}") DataSize maxEntrySize,
+                              @Value("${avatar.offheap.file:}") String file) throws IOException {
+        this.pageSize = Math.toIntExact(pageSize.toBytes());
+        this.maxEntryBytes = Math.toIntExact(maxEntrySize.toBytes());
+        this.pagesPerSlab = (int) (MAX_SLAB_BYTES / this.pageSize);
+        int totalPages = Math.toIntExact(capacity.toBytes() / this.pageSize);
+        if (totalPages == 0) {
+            throw new IllegalArgumentException("Off-heap avatar cache capacity must hold at least one page");
+        }
+
+        this.slabs = new ByteBuffer[(totalPages + pagesPerSlab - 1) / pagesPerSlab];
+        this.backingFile = file.isBlank() ? null : Path.of(file);
+        if (backingFile == null) {
+            for (int i = 0; i < slabs.length; i++) {
+                slabs[i] = ByteBuffer.allocateDirect(slabBytes(i, totalPages));
+            }
+        } else {
+            try (FileChannel channel = FileChannel.open(backingFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int i = 0; i < slabs.length; i++) {
+                    slabs[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                            (long) i * pagesPerSlab * this.pageSize, slabBytes(i, totalPages));
+                }
+            }
+        }
+
+        this.freePages = new int[totalPages];
+        for (int i = 0; i < totalPages; i++) {
+            freePages[i] = totalPages - 1 - i;
+        }
+        this.freeCount = totalPages;
+        log.info("Off-heap avatar cache allocated {} pages of {} bytes ({})", totalPages, this.pageSize,
+                backingFile == null ? "direct memory" : "mapped " + backingFile);
+    }
+
+    public Optional<CachedAvatar> acquire(Long key) {
+        lock.lock();
+        try {
+            Entry entry = index.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+            hits.incrementAndGet();
+            entry.pins++;
+            return Optional.of(new CachedAvatar(entry));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean put(Long key, InputStream in, int length) throws IOException {
+        if (length > maxEntryBytes) {
+            log.debug("Avatar data {} of {} bytes exceeds off-heap entry limit", key, length);
+            return false;
+        }
+        Entry entry = reserve(key, length);
+        if (entry == null) {
+            return false;
+        }
+        try {
+            byte[] buffer = new byte[pageSize];
+            int remaining = length;
+            for (int page : entry.pages) {
+                int count = Math.min(pageSize, remaining);
+                if (in.readNBytes(buffer, 0, count) != count) {
+                    throw new IOException("Avatar data " + key + " is shorter than " + length + " bytes");
+                }
+                pageSlice(page, count).put(buffer, 0, count);
+                remaining -= count;
+            }
+        } catch (IOException | RuntimeException e) {
+            release(entry.pages);
+            throw e;
+        }
+
+        lock.lock();
+        try {
+            if (index.containsKey(key)) {
+                release(entry.pages);
+            } else {
+                index.put(key, entry);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long usedBytes() {
+        lock.lock();
+        try {
+            return (long) (freePages.length - freeCount) * pageSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("avatar.offheap.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("avatar.offheap.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("avatar.offheap.evictions", evictions, AtomicLong::get).register(registry);
+        Gauge.builder("avatar.offheap.used", this, OffHeapAvatarCache::usedBytes)
+                .baseUnit("bytes").register(registry);
+        Gauge.builder("avatar.offheap.capacity", this, cache -> (double) cache.freePages.length * cache.pageSize)
+                .baseUnit("bytes").register(registry);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (backingFile != null) {
+            Files.deleteIfExists(backingFile);
+        }
+    }
+
+    private Entry reserve(Long key, int length) {
+        int needed = Math.max(1, (length + pageSize - 1) / pageSize);
+        lock.lock();
+        try {
+            Iterator<Map.Entry<Long, Entry>> lru = index.entrySet().iterator();
+            while (freeCount < needed && lru.hasNext()) {
+                Entry victim = lru.next().getValue();
+                lru.remove();
+                retire(victim);
+                evictions.incrementAndGet();
+            }
+            if (freeCount < needed) {
+                log.debug("Off-heap avatar cache has no room for {} pages", needed);
+                return null;
+            }
+            int[] pages = new int[needed];
+            for (int i = 0; i < needed; i++) {
+                pages[i] = freePages[--freeCount];
+            }
+            return new Entry(key, pages, length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void retire(Entry entry) {
+        entry.retired = true;
+        if (entry.pins == 0) {
+            release(entry.pages);
+        }
+    }
+
+    private void unpin(Entry entry) {
+        lock.lock();
+        try {
+            entry.pins--;
+            if (entry.pins == 0 && entry.retired) {
+                release(entry.pages);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(int[] pages) {
+        lock.lock();
+        try {
+            for (int page : pages) {
+                freePages[freeCount++] = page;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ByteBuffer pageSlice(int page, int length) {
+        ByteBuffer slab = slabs[page / pagesPerSlab];
+        return slab.slice((page % pagesPerSlab) * pageSize, length);
+    }
+
+    private int slabBytes(int slab, int totalPages) {
+        int pages = Math.min(pagesPerSlab, totalPages - slab * pagesPerSlab);
+        return pages * pageSize;
+    }
+
+    private static final class Entry {
+        private final Long key;
+        private final int[] pages;
+        private final int length;
+        private int pins;
+        private boolean retired;
+
+        private Entry(Long key, int[] pages, int length) {
+            this.key = key;
+            this.pages = pages;
+            this.length = length;
+        }
+    }
+
+    public final class CachedAvatar implements AutoCloseable {
+        private final Entry entry;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private CachedAvatar(Entry entry) {
+            this.entry = entry;
+        }
+
+        public int length() {
+            return entry.length;
+        }
+
+        public InputStream openStream() {
+            return new PageInputStream(entry);
+        }
+
+        public Resource asResource() {
+            return new AbstractResource() {
+                @Override
+                public String getDescription() {
+                    return "off-heap avatar data " + entry.key;
+                }
+
+                @Override
+                public InputStream getInputStream() {
+                    return openStream();
+                }
+
+                @Override
+                public long contentLength() {
+                    return entry.length;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                unpin(entry);
+            }
+        }
+    }
+
+    private final class PageInputStream extends InputStream {
+        private final Entry entry;
+        private int position;
+
+        private PageInputStream(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public int read() {
+            if (position >= entry.length) {
+                return -1;
+            }
+            int page = entry.pages[position / pageSize];
+            int offset = (page % pagesPerSlab) * pageSize + position % pageSize;
+            position++;
+            return slabs[page / pagesPerSlab].get(offset) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= entry.length) {
+                return -1;
+            }
+            int pageOffset = position % pageSize;
+            int count = Math.min(len, Math.min(pageSize - pageOffset, entry.length - position));
+            pageSlice(entry.pages[position / pageSize], pageOffset + count).get(pageOffset, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, entry.length - position));
+            position += (int) skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return entry.length - position;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package ru.hogwarts.school.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import ru.hogwarts.school.dto.RosterJobStatus;
+import ru.hogwarts.school.exception.EntityNotFoundException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs batch jobs over the student roster on the bounded roster worker pool. The id span of
+ * the roster is split into up to {@code parallelism} contiguous partitions; workers take
+ * partitions in id order and read each one front to back in keyset pages of
+ * {@code chunkSize}, so neither the submitter nor a worker ever holds more than one page.
+ * An exclusive job runs on a single worker and processes each page under a lock shared by
+ * all exclusive jobs, so the output of two pages never interleaves, even across concurrent
+ * jobs.
+ * <p>
+ * At most {@code roster.jobs.max-active} jobs may be unfinished at a time; further jobs are
+ * rejected with {@link RejectedExecutionException}, as are workers the pool has no room for.
+ * The status of the last {@code roster.jobs.history-size} jobs is kept for the status endpoint.
+ */
+@Slf4j
+@Service
+public class RosterJobService {
+    private final AsyncTaskExecutor executor;
+    private final int maxActiveJobs;
+    private final int defaultChunkSize;
+    private final int defaultParallelism;
+    private final Map<Long, Job> jobs;
+    private final AtomicLong jobIds = new AtomicLong();
+    private final AtomicInteger activeJobs = new AtomicInteger();
+    private final Object exclusiveLock = new Object();
+
+    public RosterJobService(@Qualifier("rosterJobExecutor") AsyncTaskExecutor executor,
+                            @Value("${roster.jobs.max-active:8}") int maxActiveJobs,
+                            @Value("${roster.jobs.history-size:100}") int historySize,
+                            @Value("${roster.jobs.chunk-size:500}") int defaultChunkSize,
+                            @Value("${roster.jobs.parallelism:3}") int defaultParallelism) {
+        this.executor = executor;
+        this.maxActiveJobs = maxActiveJobs;
+        this.defaultChunkSize = defaultChunkSize;
+        this.defaultParallelism = defaultParallelism;
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Job> eldest) {
+                return size() > historySize;
+            }
+        };
+    }
+
+    /**
+     * A roster read by keyset pagination over ids {@code firstId..lastId}.
+     */
+    public interface Roster<T> {
+        long firstId();
+
+        long lastId();
+
+        /**
+         * Expected number of entries, only used to report progress.
+         */
+        long size();
+
+        /**
+         * At most {@code limit} entries with ids in {@code (afterId, lastId]}, in id order.
+         */
+        List<T> page(long afterId, long lastId, int limit);
+
+        long idOf(T item);
+    }
+
+    /**
+     * Submits a job with the configured {@code roster.jobs.chunk-size} and {@code roster.jobs.parallelism}.
+     */
+    public <T> RosterJobStatus submit(String name, Roster<T> roster, boolean exclusive, Consumer<? super T> processor) {
+        return submit(name, roster, defaultChunkSize, defaultParallelism, exclusive, processor);
+    }
+
+    public <T> RosterJobStatus submit(String name, Roster<T> roster, int chunkSize, int parallelism,
+                                      boolean exclusive, Consumer<? super T> processor) {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Chunk size and parallelism must be positive");
+        }
+        if (activeJobs.incrementAndGet() > maxActiveJobs) {
+            activeJobs.decrementAndGet();
+            throw new RejectedExecutionException("Roster job limit of " + maxActiveJobs + " reached");
+        }
+
+        long[] bounds = partition(roster.firstId(), roster.lastId(), parallelism);
+        int partitions = bounds.length - 1;
+        // Extra workers of an exclusive job would only wait on the lock and keep pool
+        // threads from other jobs.
+        int workers = Math.min(exclusive ? 1 : parallelism, partitions);
+        Job job = new Job(jobIds.incrementAndGet(), name, partitions, roster.size(), workers);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        log.info("Roster job {} ({}) started: about {} students in {} partitions of ids {}..{}, {} workers",
+                job.id, name, roster.size(), partitions, roster.firstId(), roster.lastId(), workers);
+
+        AtomicInteger nextPartition = new AtomicInteger();
+        Runnable worker = () -> {
+            try {
+                job.start();
+                int index;
+                while (!job.failed() && (index = nextPartition.getAndIncrement()) < partitions) {
+                    processPartition(job, roster, bounds[index], bounds[index + 1], chunkSize, exclusive, processor);
+                    job.partitionDone();
+                }
+            } catch (RuntimeException e) {
+                log.error("Roster job {} ({}) failed", job.id, name, e);
+                job.fail(e);
+            } finally {
+                release(job);
+            }
+        };
+
+        for (int i = 0; i < workers; i++) {
+            job.runningWorkers.incrementAndGet();
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                job.runningWorkers.decrementAndGet();
+                if (i == 0) {
+                    job.fail(e);
+                    release(job);
+                    throw e;
+                }
+                log.warn("Roster job {} ({}) runs with {} of {} workers, the pool is full", job.id, name, i, workers);
+                break;
+            }
+        }
+        // The submitter holds one reference of its own, so a fast job cannot finish before
+        // all of its workers have been handed to the pool.
+        release(job);
+        return job.status();
+    }
+
+    /**
+     * Pages through ids {@code (afterId, lastId]} by keyset, the last id of a page being
+     * where the next one starts; a short page ends the partition.
+     */
+    private <T> void processPartition(Job job, Roster<T> roster, long afterId, long lastId, int chunkSize,
+                                      boolean exclusive, Consumer<? super T> processor) {
+        while (!job.failed()) {
+            List<T> page = roster.page(afterId, lastId, chunkSize);
+            if (exclusive) {
+                synchronized (exclusiveLock) {
+                    page.forEach(processor);
+                }
+            } else {
+                page.forEach(processor);
+            }
+            job.itemsDone(page.size());
+            if (page.size() < chunkSize) {
+                return;
+            }
+            afterId = roster.idOf(page.get(page.size() - 1));
+        }
+    }
+
+    /**
+     * Splits ids {@code firstId..lastId} into at most {@code count} contiguous ranges of about
+     * the same width. Range {@code i} covers ids {@code (bounds[i], bounds[i + 1]]}.
+     */
+    private static long[] partition(long firstId, long lastId, int count) {
+        if (firstId > lastId) {
+            return new long[] {firstId};
+        }
+        long span = lastId - firstId + 1;
+        int partitions = (int) Math.min(count, span);
+        long width = span / partitions;
+        long remainder = span % partitions;
+        long[] bounds = new long[partitions + 1];
+        bounds[0] = firstId - 1;
+        for (int i = 1; i <= partitions; i++) {
+            bounds[i] = bounds[i - 1] + width + (i <= remainder ? 1 : 0);
+        }
+        return bounds;
+    }
+
+    public RosterJobStatus getStatus(long id) {
+        log.info("Was invoked method for get roster job with id = {}", id);
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+        }
+        if (job == null) {
+            throw new EntityNotFoundException("Roster job not found with id: " + id);
+        }
+        return job.status();
+    }
+
+    private void release(Job job) {
+        if (job.runningWorkers.decrementAndGet() == 0) {
+            activeJobs.decrementAndGet();
+            job.finish();
+            log.info("Roster job {} ({}) {}: {} students in {}",
+                    job.id, job.name, job.failed() ? "failed" : "completed", job.processedItems,
+                    Duration.between(job.submittedAt, job.finishedAt));
+        }
+    }
+
+    private static final class Job {
+        private final long id;
+        private final String name;
+        private final int partitions;
+        private final long items;
+        private final int parallelism;
+        private final Instant submittedAt = Instant.now();
+        private final AtomicInteger runningWorkers = new AtomicInteger(1);
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private int completedPartitions;
+        private long processedItems;
+        private long startNanos;
+        private long finishNanos;
+
+        Job(long id, String name, int partitions, long items, int parallelism) {
+            this.id = id;
+            this.name = name;
+            this.partitions = partitions;
+            this.items = items;
+            this.parallelism = parallelism;
+        }
+
+        synchronized void start() {
+            if (startedAt == null) {
+                startedAt = Instant.now();
+                startNanos = System.nanoTime();
+            }
+        }
+
+        synchronized void itemsDone(int size) {
+            processedItems += size;
+        }
+
+        synchronized void partitionDone() {
+            completedPartitions++;
+        }
+
+        void fail(Exception e) {
+            if (error == null) {
+                error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            }
+        }
+
+        boolean failed() {
+            return error != null;
+        }
+
+        synchronized void finish() {
+            finishedAt = Instant.now();
+            finishNanos = System.nanoTime();
+        }
+
+        synchronized RosterJobStatus status() {
+            String state = failed() ? "FAILED"
+                    : finishedAt != null ? "COMPLETED"
+                    : startedAt != null ? "RUNNING"
+                    : "QUEUED";
+            Double itemsPerSecond = null;
+            if (startedAt != null) {
+                long elapsed = (finishedAt != null ? finishNanos : System.nanoTime()) - startNanos;
+                itemsPerSecond = elapsed > 0 ? processedItems * 1e9 / elapsed : null;
+            }
+            return new RosterJobStatus(id, name, state, partitions, completedPartitions, items, processedItems,
+                    parallelism, submittedAt, startedAt, finishedAt, itemsPerSecond, error);
+        }
+    }
+}
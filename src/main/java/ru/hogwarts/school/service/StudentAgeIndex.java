@@ -0,0 +1,220 @@
+package ru.hogwarts.school.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Student ids bucketed by age. Ages live in a tiny integer domain, so each age gets its
+ * own sorted {@code long[]} and a range query is a walk over a handful of buckets.
+ * Kept in sync from {@link StudentChangedEvent}s and rebuilt from the database
+ * periodically; until the first rebuild finishes callers fall back to SQL.
+ */
+@Slf4j
+@Component
+public class StudentAgeIndex {
+    private final StudentRepository studentRepository;
+    private final int maxAge;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private SortedLongSet[] buckets;
+    private List<StudentChangedEvent> journal;
+    private volatile boolean ready;
+
+    public StudentAgeIndex(StudentRepository studentRepository,
+                           @Value("${student.age-index.max-age:150}") int maxAge) {
+        this.studentRepository = studentRepository;
+        this.maxAge = maxAge;
+        this.buckets = newBuckets(maxAge);
+    }
+
+    /**
+     * Whether the range can be answered from memory: the index has been built and the
+     * range lies inside the indexed age domain.
+     */
+    public boolean covers(int minAge, int maxAge) {
+        return ready && minAge >= 0 && maxAge <= this.maxAge;
+    }
+
+    public long countBetween(int minAge, int maxAge) {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (int age = Math.max(0, minAge); age <= Math.min(this.maxAge, maxAge); age++) {
+                count += buckets[age].size();
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of students whose age lies in the range, in ascending order.
+     */
+    public long[] idsBetween(int minAge, int maxAge) {
+        lock.readLock().lock();
+        try {
+            int from = Math.max(0, minAge);
+            int to = Math.min(this.maxAge, maxAge);
+            int total = 0;
+            for (int age = from; age <= to; age++) {
+                total += buckets[age].size();
+            }
+            long[] ids = new long[total];
+            int offset = 0;
+            for (int age = from; age <= to; age++) {
+                offset = buckets[age].copyTo(ids, offset);
+            }
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentChanged(StudentChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(buckets, event);
+            if (journal != null) {
+                journal.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${student.age-index.rebuild-interval:PT30M}",
+            initialDelayString = "${student.age-index.rebuild-interval:PT30M}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        log.info("Was invoked method for rebuild student age index");
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        SortedLongSet[] rebuilt = newBuckets(maxAge);
+        int skipped = 0;
+        try (Stream<StudentRepository.IdAndAge> rows = studentRepository.streamIdsAndAges()) {
+            for (StudentRepository.IdAndAge row : (Iterable<StudentRepository.IdAndAge>) rows::iterator) {
+                if (row.getAge() < 0 || row.getAge() > maxAge) {
+                    skipped++;
+                } else {
+                    rebuilt[row.getAge()].appendAscending(row.getId());
+                }
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        if (skipped > 0) {
+            log.warn("{} students are outside the indexed age domain 0..{}", skipped, maxAge);
+        }
+
+        // Changes committed while the table was being read may or may not be in the
+        // snapshot; adds and removes are idempotent, so replaying them is always safe.
+        lock.writeLock().lock();
+        try {
+            journal.forEach(event -> apply(rebuilt, event));
+            journal = null;
+            buckets = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(SortedLongSet[] target, StudentChangedEvent event) {
+        if (event.before() != null && inDomain(event.before().age())) {
+            target[event.before().age()].remove(event.before().id());
+        }
+        if (event.after() != null && inDomain(event.after().age())) {
+            target[event.after().age()].add(event.after().id());
+        }
+    }
+
+    private boolean inDomain(int age) {
+        return age >= 0 && age <= maxAge;
+    }
+
+    private static SortedLongSet[] newBuckets(int maxAge) {
+        SortedLongSet[] buckets = new SortedLongSet[maxAge + 1];
+        for (int age = 0; age <= maxAge; age++) {
+            buckets[age] = new SortedLongSet();
+        }
+        return buckets;
+    }
+
+    private static final class SortedLongSet {
+        private long[] values = new long[8];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void appendAscending(long value) {
+            if (size > 0 && values[size - 1] >= value) {
+                add(value);
+                return;
+            }
+            ensureCapacity();
+            values[size++] = value;
+        }
+
+        void add(long value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            ensureCapacity();
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = value;
+            size++;
+        }
+
+        void remove(long value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size--;
+        }
+
+        int copyTo(long[] target, int offset) {
+            System.arraycopy(values, 0, target, offset, size);
+            return offset + size;
+        }
+
+        private void ensureCapacity() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+        }
+    }
+}
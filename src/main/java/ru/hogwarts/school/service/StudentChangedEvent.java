@@ -0,0 +1,18 @@
+package ru.hogwarts.school.service;
+
+import ru.hogwarts.school.model.Student;
+
+/**
+ * Published by {@link StudentService} whenever a student is created, updated or deleted.
+ * {@code before} is null for a new student and {@code after} is null for a deleted one.
+ */
+public record StudentChangedEvent(State before, State after) {
+
+    public record State(Long id, Long facultyId, int age) {
+        public static State of(Student student) {
+            return new State(student.getId(),
+                    student.getFaculty() != null ? student.getFaculty().getId() : null,
+                    student.getAge());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Dumps students joined with their faculty names straight from a JDBC cursor to an
+ * output stream. Rows are written as they arrive, so neither time to first byte nor heap
+ * use depends on the size of the table.
+ */
+@Slf4j
+@Service
+public class StudentExportService {
+    private static final String EXPORT_SQL = "SELECT s.id, s.name, s.age, f.name AS faculty_name "
+            + "FROM student s LEFT JOIN faculty f ON s.faculty_id = f.id ORDER BY s.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public StudentExportService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                @Value("${student.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only honours the fetch size inside a transaction; otherwise it
+        // materialises the whole result set on the client.
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public void exportCsv(OutputStream out) throws IOException {
+        log.info("Was invoked method for export students as CSV");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,name,age,faculty\n");
+        export(rs -> {
+            writer.write(Long.toString(rs.getLong("id")));
+            writer.write(',');
+            writer.write(csv(rs.getString("name")));
+            writer.write(',');
+            writer.write(Integer.toString(rs.getInt("age")));
+            writer.write(',');
+            writer.write(csv(rs.getString("faculty_name")));
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    public void exportNdjson(OutputStream out) throws IOException {
+        log.info("Was invoked method for export students as NDJSON");
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.setRootValueSeparator(null);
+        export(rs -> {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("name", rs.getString("name"));
+            generator.writeNumberField("age", rs.getInt("age"));
+            generator.writeStringField("faculty", rs.getString("faculty_name"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        });
+        generator.flush();
+    }
+
+    private void export(RowWriter rowWriter) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(EXPORT_SQL, rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+}
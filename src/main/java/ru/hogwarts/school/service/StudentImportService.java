@@ -0,0 +1,306 @@
+package ru.hogwarts.school.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.FacultyRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streams students from CSV or a JSON array into the database in chunks. Rows are
+ * validated as they are read; bad rows end up in the report and the rest of the file
+ * is still imported.
+ */
+@Slf4j
+@Service
+public class StudentImportService {
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final FacultyRepository facultyRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public StudentImportService(FacultyRepository facultyRepository,
+                                ObjectMapper objectMapper,
+                                Validator validator,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${student.import.chunk-size:500}") int chunkSize) {
+        this.facultyRepository = facultyRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public ImportReport importCsv(InputStream in) throws IOException {
+        log.info("Was invoked method for import students from CSV");
+        Import job = new Import();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            return job.finish();
+        }
+        List<String> columns = parseCsvLine(header).stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .toList();
+        int nameColumn = columns.indexOf("name");
+        int ageColumn = columns.indexOf("age");
+        int facultyColumn = columns.contains("faculty_id") ? columns.indexOf("faculty_id") : columns.indexOf("facultyid");
+        if (nameColumn < 0 || ageColumn < 0) {
+            throw new IllegalArgumentException("CSV header must contain name and age columns");
+        }
+
+        long line = 1;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            if (text.isBlank()) {
+                continue;
+            }
+            List<String> fields = parseCsvLine(text);
+            try {
+                job.add(line, toStudent(
+                        field(fields, nameColumn),
+                        parseInt(field(fields, ageColumn), "age"),
+                        parseLong(field(fields, facultyColumn), "faculty_id")));
+            } catch (IllegalArgumentException e) {
+                job.reject(line, e.getMessage());
+            }
+        }
+        return job.finish();
+    }
+
+    public ImportReport importJson(InputStream in) throws IOException {
+        log.info("Was invoked method for import students from JSON");
+        Import job = new Import();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of students");
+            }
+            long row = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                row++;
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    if (node == null || !node.isObject()) {
+                        throw new IllegalArgumentException("Expected an object");
+                    }
+                    JsonNode faculty = node.has("facultyId") ? node.get("facultyId") : node.path("faculty").get("id");
+                    job.add(row, toStudent(
+                            node.hasNonNull("name") ? node.get("name").asText() : null,
+                            parseInt(node.hasNonNull("age") ? node.get("age").asText() : null, "age"),
+                            parseLong(faculty != null && !faculty.isNull() ? faculty.asText() : null, "facultyId")));
+                } catch (IllegalArgumentException e) {
+                    job.reject(row, e.getMessage());
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Student import stopped at malformed JSON: {}", e.getOriginalMessage());
+            job.reject(job.lastRow() + 1, "Malformed JSON, import stopped: " + e.getOriginalMessage());
+        }
+        return job.finish();
+    }
+
+    private Student toStudent(String name, Integer age, Long facultyId) {
+        if (age == null) {
+            throw new IllegalArgumentException("Age is mandatory");
+        }
+        Student student = new Student();
+        student.setName(name);
+        student.setAge(age);
+        Set<ConstraintViolation<Student>> violations = validator.validate(student);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (facultyId != null) {
+            Faculty faculty = new Faculty();
+            faculty.setId(facultyId);
+            student.setFaculty(faculty);
+        }
+        return student;
+    }
+
+    /**
+     * State of one import run: the pending chunk, the known faculty ids and the tally.
+     */
+    private final class Import {
+        private final Set<Long> facultyIds = facultyRepository.findAll().stream()
+                .map(Faculty::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+        private final List<Long> rows = new ArrayList<>();
+        private final List<Student> chunk = new ArrayList<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+        private long lastRow;
+
+        void add(long row, Student student) {
+            lastRow = row;
+            if (student.getFaculty() != null && !facultyIds.contains(student.getFaculty().getId())) {
+                reject(row, "Faculty not found with id: " + student.getFaculty().getId());
+                return;
+            }
+            rows.add(row);
+            chunk.add(student);
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        long lastRow() {
+            return lastRow;
+        }
+
+        void reject(long row, String message) {
+            lastRow = Math.max(lastRow, row);
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportReport.RowError(row, message));
+            }
+        }
+
+        ImportReport finish() {
+            flush();
+            log.info("Imported {} students, rejected {}", imported, failed);
+            return new ImportReport(imported, failed, List.copyOf(errors));
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(chunk));
+                imported += chunk.size();
+            } catch (RuntimeException e) {
+                log.warn("Import chunk of {} rows failed, retrying row by row: {}", chunk.size(), e.getMessage());
+                for (int i = 0; i < chunk.size(); i++) {
+                    Student student = chunk.get(i);
+                    student.setId(null);
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> persist(List.of(student)));
+                        imported++;
+                    } catch (RuntimeException rowFailure) {
+                        reject(rows.get(i), NestedExceptionUtils.getMostSpecificCause(rowFailure).getMessage());
+                    }
+                }
+            } finally {
+                chunk.clear();
+                rows.clear();
+            }
+        }
+
+        private void persist(List<Student> students) {
+            for (Student student : students) {
+                if (student.getFaculty() != null) {
+                    student.setFaculty(entityManager.getReference(Faculty.class, student.getFaculty().getId()));
+                }
+                entityManager.persist(student);
+            }
+            entityManager.flush();
+            for (Student student : students) {
+                eventPublisher.publishEvent(new StudentChangedEvent(null, StudentChangedEvent.State.of(student)));
+            }
+            entityManager.clear();
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer parseInt(String value, String column) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static Long parseLong(String value, String column) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    /**
+     * Splits one CSV line, honouring double-quoted fields with "" as an escaped quote.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
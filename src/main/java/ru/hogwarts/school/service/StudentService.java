@@ -1,34 +1,56 @@
 package ru.hogwarts.school.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.hogwarts.school.config.CacheConfig;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.dto.RosterJobStatus;
+import ru.hogwarts.school.dto.StudentDto;
+import ru.hogwarts.school.dto.StudentStatisticsDto;
 import ru.hogwarts.school.exception.EntityNotFoundException;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.repository.StudentRepository;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class StudentService {
     private final StudentRepository studentRepository;
+    private final StudentStatistics studentStatistics;
+    private final StudentAgeIndex studentAgeIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RosterJobService rosterJobService;
     private static final int REQUIRED_STUDENTS_COUNT = 6;
+    private static final int ID_BATCH_SIZE = 1000;
+    public static final int MAX_PAGE_SIZE = 1000;
 
     @Transactional
     public Student createStudent(Student student) {
         log.info("Was invoked method for create student");
-        return studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        eventPublisher.publishEvent(new StudentChangedEvent(null, StudentChangedEvent.State.of(saved)));
+        return saved;
     }
 
     public Student getStudent(Long id) {
         log.info("Was invoked method for get student with id = {}", id);
-        return studentRepository.findById(id)
+        return studentRepository.findWithAssociationsById(id)
                 .orElseThrow(() -> {
                     log.error("There is not student with id = {}", id);
                     return new EntityNotFoundException("Student not found with id: " + id);
@@ -43,107 +65,198 @@ public class StudentService {
                     log.error("There is not student with id = {}", id);
                     return new EntityNotFoundException("Student not found with id: " + id);
                 });
+        StudentChangedEvent.State before = StudentChangedEvent.State.of(existingStudent);
         existingStudent.setName(student.getName());
         existingStudent.setAge(student.getAge());
         existingStudent.setFaculty(student.getFaculty());
-        return studentRepository.save(existingStudent);
+        Student saved = studentRepository.save(existingStudent);
+        eventPublisher.publishEvent(new StudentChangedEvent(before, StudentChangedEvent.State.of(saved)));
+        return saved;
     }
 
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.AVATARS_CACHE, key = "#id")
     public void deleteStudent(Long id) {
         log.info("Was invoked method for delete student with id = {}", id);
-        studentRepository.deleteById(id);
+        studentRepository.findById(id).ifPresent(student -> {
+            studentRepository.delete(student);
+            eventPublisher.publishEvent(new StudentChangedEvent(StudentChangedEvent.State.of(student), null));
+        });
     }
 
-    public List<Student> getAllStudents() {
+    public List<StudentDto> getAllStudents() {
         log.info("Was invoked method for get all students");
-        return studentRepository.findAll();
+        return studentRepository.findAllOrderedById();
     }
 
-    public List<Student> getStudentsByAgeBetween(int minAge, int maxAge) {
+    public List<StudentDto> getStudentsAfter(long afterId, int limit) {
+        log.info("Was invoked method for get {} students after id = {}", limit, afterId);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return studentRepository.findPageAfter(afterId, Limit.of(limit));
+    }
+
+    /**
+     * Hands every student to {@code action} in id order without holding the whole roster in
+     * memory: rows come from a server-side cursor as DTOs, so nothing piles up in the
+     * persistence context.
+     */
+    @Transactional(readOnly = true)
+    public void forEachStudent(Consumer<StudentDto> action) {
+        log.info("Was invoked method for stream all students");
+        try (Stream<StudentDto> students = studentRepository.streamAllOrderedById()) {
+            students.forEach(action);
+        }
+    }
+
+    /**
+     * Case-insensitive name search. Both forms compare against UPPER(name) so PostgreSQL can
+     * use the pattern_ops index for prefixes and the trigram index for substrings.
+     */
+    public List<StudentDto> searchStudents(String prefix, String contains, int limit) {
+        log.info("Was invoked method for search students by prefix = {}, contains = {}", prefix, contains);
+        if ((prefix == null || prefix.isBlank()) == (contains == null || contains.isBlank())) {
+            throw new IllegalArgumentException("Exactly one of prefix or contains must be given");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String pattern = prefix != null && !prefix.isBlank()
+                ? escapeLike(prefix) + "%"
+                : "%" + escapeLike(contains) + "%";
+        return studentRepository.findByUpperNameLike(pattern, Limit.of(limit));
+    }
+
+    public List<StudentDto> getStudentsByAgeBetween(int minAge, int maxAge) {
         log.info("Was invoked method for get students by age between {} and {}", minAge, maxAge);
-        return studentRepository.findByAgeBetween(minAge, maxAge);
+        if (!studentAgeIndex.covers(minAge, maxAge)) {
+            return studentRepository.findByAgeBetween(minAge, maxAge);
+        }
+        long[] ids = studentAgeIndex.idsBetween(minAge, maxAge);
+        List<StudentDto> students = new ArrayList<>(ids.length);
+        for (int from = 0; from < ids.length; from += ID_BATCH_SIZE) {
+            List<Long> batch = Arrays.stream(ids, from, Math.min(ids.length, from + ID_BATCH_SIZE))
+                    .boxed()
+                    .toList();
+            students.addAll(studentRepository.findByIdInAndAgeBetween(batch, minAge, maxAge));
+        }
+        return students;
+    }
+
+    public long countStudentsByAgeBetween(int minAge, int maxAge) {
+        log.info("Was invoked method for count students by age between {} and {}", minAge, maxAge);
+        if (!studentAgeIndex.covers(minAge, maxAge)) {
+            return studentRepository.countByAgeBetween(minAge, maxAge);
+        }
+        return studentAgeIndex.countBetween(minAge, maxAge);
     }
 
     public Faculty getFacultyByStudentId(Long studentId) {
         log.info("Was invoked method for get faculty by student id = {}", studentId);
-        Student student = studentRepository.findById(studentId)
+        return studentRepository.findFacultyByStudentId(studentId)
                 .orElseThrow(() -> {
-                    log.error("There is not student with id = {}", studentId);
-                    return new EntityNotFoundException("Student not found with id: " + studentId);
+                    if (!studentRepository.existsById(studentId)) {
+                        log.error("There is not student with id = {}", studentId);
+                        return new EntityNotFoundException("Student not found with id: " + studentId);
+                    }
+                    log.error("Faculty not found for student id = {}", studentId);
+                    return new EntityNotFoundException("Faculty not found for student id: " + studentId);
                 });
-        if (student.getFaculty() == null) {
-            log.error("Faculty not found for student id = {}", studentId);
-            throw new EntityNotFoundException("Faculty not found for student id: " + studentId);
-        }
-        return student.getFaculty();
     }
 
     public Integer countAllStudents() {
         log.info("Was invoked method for count all students");
-        return studentRepository.countAllStudents();
+        return Math.toIntExact(studentStatistics.count());
     }
 
     public Double findAverageAge() {
         log.info("Was invoked method for find average age of students");
-        return studentRepository.findAverageAge();
+        return studentStatistics.averageAge();
+    }
+
+    public StudentStatisticsDto getStatistics() {
+        log.info("Was invoked method for get student statistics");
+        return studentStatistics.describe();
     }
 
-    public List<Student> findLastFiveStudents() {
+    public List<StudentDto> findLastFiveStudents() {
         log.info("Was invoked method for find last five students");
         return studentRepository.findLastFiveStudents(PageRequest.of(0, 5));
     }
 
     public List<String> getStudentNamesStartingWithA() {
         log.info("Getting student names starting with 'A'");
-        return studentRepository.findAllNamesStartingWithA();
+        return studentRepository.findNamesByUpperNameLike("А%");
     }
 
     public List<String> getFirstSixStudentsNames() {
         log.info("Was invoked method for get first six students names");
-        return studentRepository.findAll().stream()
-                .limit(REQUIRED_STUDENTS_COUNT)
-                .map(Student::getName)
-                .collect(Collectors.toList());
+        return studentRepository.findNamesOrderedById(Limit.of(REQUIRED_STUDENTS_COUNT));
     }
 
-    @Transactional
-    public void printStudentsParallel() {
+    public RosterJobStatus printStudentsParallel() {
         log.info("Was invoked method for print students in parallel");
-        List<String> names = getFirstSixStudentsNames();
-        validateNamesSize(names);
-
-        System.out.println(Thread.currentThread().getName() + ": " + names.get(0));
-        System.out.println(Thread.currentThread().getName() + ": " + names.get(1));
+        validateNamesSize(studentRepository.findNamesOrderedById(Limit.of(REQUIRED_STUDENTS_COUNT)));
+        return rosterJobService.submit("print-parallel", studentNames(), false, StudentService::printName);
+    }
 
-        new Thread(() -> {
-            System.out.println(Thread.currentThread().getName() + ": " + names.get(2));
-            System.out.println(Thread.currentThread().getName() + ": " + names.get(3));
-        }).start();
+    public RosterJobStatus printStudentsSynchronized() {
+        log.info("Was invoked method for print students synchronized");
+        validateNamesSize(studentRepository.findNamesOrderedById(Limit.of(REQUIRED_STUDENTS_COUNT)));
+        return rosterJobService.submit("print-synchronized", studentNames(), true, StudentService::printName);
+    }
 
-        new Thread(() -> {
-            System.out.println(Thread.currentThread().getName() + ": " + names.get(4));
-            System.out.println(Thread.currentThread().getName() + ": " + names.get(5));
-        }).start();
+    public RosterJobStatus getRosterJob(long id) {
+        return rosterJobService.getStatus(id);
     }
 
-    @Transactional
-    public void printStudentsSynchronized() {
-        log.info("Was invoked method for print students synchronized");
-        List<String> names = getFirstSixStudentsNames();
-        validateNamesSize(names);
+    /**
+     * The whole student table as a roster job input. Only the id bounds are read here; the
+     * names are paged in by the job's workers.
+     */
+    private RosterJobService.Roster<StudentRepository.IdAndName> studentNames() {
+        StudentRepository.IdRange ids = studentRepository.findIdRange();
+        long first = ids.getFirstId() != null ? ids.getFirstId() : 1;
+        long last = ids.getLastId() != null ? ids.getLastId() : 0;
+        long size = studentStatistics.count();
+        return new RosterJobService.Roster<>() {
+            @Override
+            public long firstId() {
+                return first;
+            }
 
-        printNamesSynchronized(names.subList(0, 2));
+            @Override
+            public long lastId() {
+                return last;
+            }
 
-        new Thread(() -> printNamesSynchronized(names.subList(2, 4))).start();
+            @Override
+            public long size() {
+                return size;
+            }
+
+            @Override
+            public List<StudentRepository.IdAndName> page(long afterId, long lastId, int limit) {
+                return studentRepository.findNamesBetween(afterId, lastId, Limit.of(limit));
+            }
+
+            @Override
+            public long idOf(StudentRepository.IdAndName student) {
+                return student.getId();
+            }
+        };
+    }
 
-        new Thread(() -> printNamesSynchronized(names.subList(4, 6))).start();
+    private static void printName(StudentRepository.IdAndName student) {
+        System.out.println(Thread.currentThread().getName() + ": " + student.getName());
     }
 
-    private synchronized void printNamesSynchronized(List<String> names) {
-        names.forEach(name ->
-                System.out.println(Thread.currentThread().getName() + ": " + name)
-        );
+    private static String escapeLike(String value) {
+        return value.toUpperCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
     }
 
     private void validateNamesSize(List<String> names) {
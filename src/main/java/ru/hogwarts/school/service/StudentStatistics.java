@@ -0,0 +1,162 @@
+package ru.hogwarts.school.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.hogwarts.school.dto.FacultyStatisticsDto;
+import ru.hogwarts.school.dto.StudentStatisticsDto;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Running student count and age sum, overall and per faculty, kept up to date from
+ * {@link StudentChangedEvent}s after each commit. Reads never touch the database; the
+ * periodic reconcile corrects any drift from writes that bypass {@link StudentService}.
+ */
+@Slf4j
+@Component
+public class StudentStatistics {
+    private final StudentRepository studentRepository;
+
+    private final Object reconcileLock = new Object();
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private List<StudentChangedEvent> journal;
+
+    public StudentStatistics(StudentRepository studentRepository) {
+        this.studentRepository = studentRepository;
+    }
+
+    public long count() {
+        return snapshot.total().count();
+    }
+
+    public Double averageAge() {
+        return snapshot.total().averageAge();
+    }
+
+    public StudentStatisticsDto describe() {
+        Snapshot current = snapshot;
+        List<FacultyStatisticsDto> faculties = current.byFaculty().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                .map(e -> new FacultyStatisticsDto(e.getKey(), e.getValue().count(), e.getValue().averageAge()))
+                .toList();
+        return new StudentStatisticsDto(current.total().count(), current.total().averageAge(), faculties);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStudentChanged(StudentChangedEvent event) {
+        Totals total = snapshot.total();
+        Map<Long, Totals> byFaculty = new HashMap<>(snapshot.byFaculty());
+        if (event.before() != null) {
+            total = total.minus(event.before().age());
+            unapply(byFaculty, event.before());
+        }
+        if (event.after() != null) {
+            total = total.plus(event.after().age());
+            apply(byFaculty, event.after());
+        }
+        snapshot = new Snapshot(total, Map.copyOf(byFaculty));
+        if (journal != null) {
+            journal.add(event);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${student.statistics.reconcile-interval:PT5M}",
+            initialDelayString = "${student.statistics.reconcile-interval:PT5M}")
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        log.info("Was invoked method for reconcile student statistics");
+        synchronized (reconcileLock) {
+            synchronized (this) {
+                journal = new ArrayList<>();
+            }
+
+            Map<Long, StudentChangedEvent.State> students = new HashMap<>();
+            try (Stream<StudentRepository.IdFacultyAndAge> rows = studentRepository.streamIdsFacultiesAndAges()) {
+                rows.forEach(row -> students.put(row.getId(),
+                        new StudentChangedEvent.State(row.getId(), row.getFacultyId(), row.getAge())));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    journal = null;
+                }
+                throw e;
+            }
+
+            // Changes committed while the table was being read may or may not be in the
+            // rows. Totals are not idempotent, so rather than adding the journaled changes
+            // on top, each one overwrites the state of its student and the totals are
+            // summed afterwards.
+            synchronized (this) {
+                for (StudentChangedEvent event : journal) {
+                    if (event.after() != null) {
+                        students.put(event.after().id(), event.after());
+                    } else {
+                        students.remove(event.before().id());
+                    }
+                }
+                journal = null;
+
+                Totals total = new Totals(0, 0);
+                Map<Long, Totals> byFaculty = new HashMap<>();
+                for (StudentChangedEvent.State student : students.values()) {
+                    total = total.plus(student.age());
+                    apply(byFaculty, student);
+                }
+                Snapshot reconciled = new Snapshot(total, Map.copyOf(byFaculty));
+                if (!reconciled.equals(snapshot)) {
+                    log.warn("Student statistics drifted from the database, was {} students, now {}",
+                            snapshot.total().count(), total.count());
+                }
+                snapshot = reconciled;
+            }
+        }
+    }
+
+    private static void apply(Map<Long, Totals> byFaculty, StudentChangedEvent.State state) {
+        if (state.facultyId() != null) {
+            byFaculty.merge(state.facultyId(), new Totals(1, state.age()), Totals::add);
+        }
+    }
+
+    private static void unapply(Map<Long, Totals> byFaculty, StudentChangedEvent.State state) {
+        if (state.facultyId() != null) {
+            byFaculty.computeIfPresent(state.facultyId(), (id, totals) -> {
+                Totals remaining = totals.minus(state.age());
+                return remaining.count() > 0 ? remaining : null;
+            });
+        }
+    }
+
+    private record Totals(long count, long ageSum) {
+        Totals plus(int age) {
+            return new Totals(count + 1, ageSum + age);
+        }
+
+        Totals minus(int age) {
+            return new Totals(count - 1, ageSum - age);
+        }
+
+        Totals add(Totals other) {
+            return new Totals(count + other.count, ageSum + other.ageSum);
+        }
+
+        Double averageAge() {
+            return count > 0 ? (double) ageSum / count : null;
+        }
+    }
+
+    private record Snapshot(Totals total, Map<Long, Totals> byFaculty) {
+        static final Snapshot EMPTY = new Snapshot(new Totals(0, 0), Map.of());
+    }
+}
@@ -0,0 +1,145 @@
+package ru.hogwarts.school.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.hogwarts.school.controller.AvatarController;
+import ru.hogwarts.school.exception.EntityNotFoundException;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.service.AvatarService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AvatarController.class)
+public class AvatarControllerTest {
+
+    private static final byte[] IMAGE = "0123456789abcdef".getBytes();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AvatarService avatarService;
+
+    @TempDir
+    Path tempDir;
+
+    private Avatar avatar;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Path file = tempDir.resolve("avatar_1.png");
+        Files.write(file, IMAGE);
+
+        avatar = new Avatar();
+        avatar.setId(1L);
+        avatar.setFilePath(file.toString());
+        avatar.setFileSize(IMAGE.length);
+        avatar.setMediaType("image/png");
+        avatar.setDataId(7L);
+        avatar.setUpdatedAt(Instant.parse("2024-09-01T10:15:30Z"));
+    }
+
+    @Test
+    public void testGetAvatarFromFile() throws Exception {
+        when(avatarService.getAvatarByStudentId(1L)).thenReturn(avatar);
+
+        mockMvc.perform(get("/avatar/file/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, IMAGE.length))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    public void testGetAvatarFromFileRange() throws Exception {
+        when(avatarService.getAvatarByStudentId(1L)).thenReturn(avatar);
+
+        mockMvc.perform(get("/avatar/file/1").header(HttpHeaders.RANGE, "bytes=4-7"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 4-7/" + IMAGE.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes("4567".getBytes()));
+    }
+
+    @Test
+    public void testHeadAvatarFromFile() throws Exception {
+        when(avatarService.getAvatarByStudentId(1L)).thenReturn(avatar);
+
+        mockMvc.perform(head("/avatar/file/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, IMAGE.length))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"));
+    }
+
+    @Test
+    public void testGetAvatarFromFileSetsCacheHeaders() throws Exception {
+        when(avatarService.getAvatarByStudentId(1L)).thenReturn(avatar);
+
+        mockMvc.perform(get("/avatar/file/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Sun, 01 Sep 2024 10:15:30 GMT"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"));
+    }
+
+    @Test
+    public void testGetAvatarFromDbNotModified() throws Exception {
+        when(avatarService.getAvatarByStudentId(1L)).thenReturn(avatar);
+
+        mockMvc.perform(get("/avatar/db/1").header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, public"));
+
+        verify(avatarService, never()).getAvatarData(any());
+    }
+
+    @Test
+    public void testGetAvatarFromFileNotModifiedKeepsCacheControl() throws Exception {
+        when(avatarService.getAvatarByStudentId(1L)).thenReturn(avatar);
+
+        mockMvc.perform(get("/avatar/file/1").header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(header().stringValues(HttpHeaders.CACHE_CONTROL, "max-age=60, public"));
+    }
+
+    @Test
+    public void testGetAvatarFromDbChangedContent() throws Exception {
+        when(avatarService.getAvatarByStudentId(1L)).thenReturn(avatar);
+        when(avatarService.getAvatarData(avatar)).thenReturn(IMAGE);
+
+        mockMvc.perform(get("/avatar/db/1").header(HttpHeaders.IF_NONE_MATCH, "\"6\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    public void testGetAvatarFromFileNotFound() throws Exception {
+        when(avatarService.getAvatarByStudentId(2L))
+                .thenThrow(new EntityNotFoundException("Avatar not found for student id: 2"));
+
+        mockMvc.perform(get("/avatar/file/2"))
+                .andExpect(status().isNotFound());
+    }
+}
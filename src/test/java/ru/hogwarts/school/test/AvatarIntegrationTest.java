@@ -0,0 +1,317 @@
+package ru.hogwarts.school.test;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import ru.hogwarts.school.config.CacheConfig;
+import ru.hogwarts.school.config.MetricsConfig;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.AvatarData;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarDataRepository;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.AvatarContentCollector;
+import ru.hogwarts.school.service.AvatarContentStore;
+import ru.hogwarts.school.service.AvatarService;
+import ru.hogwarts.school.service.AvatarThumbnailService;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class AvatarIntegrationTest {
+
+    private static final byte[] IMAGE = "not really a png, but close enough".getBytes();
+
+    @TempDir
+    static Path storageDir;
+
+    @DynamicPropertySource
+    static void avatarStorage(DynamicPropertyRegistry registry) {
+        registry.add("avatar.storage.dir", storageDir::toString);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private AvatarDataRepository avatarDataRepository;
+
+    @Autowired
+    private AvatarContentCollector avatarContentCollector;
+
+    @Autowired
+    private AvatarContentStore avatarContentStore;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private AvatarService avatarService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Student student;
+
+    private String getBaseUrl() {
+        return "http://localhost:" + port + "/avatar";
+    }
+
+    @BeforeEach
+    public void setUp() {
+        avatarRepository.deleteAll();
+        avatarDataRepository.deleteAll();
+        studentRepository.deleteAll();
+
+        student = new Student();
+        student.setName("Luna Lovegood");
+        student.setAge(14);
+        student = studentRepository.save(student);
+    }
+
+    private Student createStudent(String name) {
+        Student other = new Student();
+        other.setName(name);
+        other.setAge(15);
+        return studentRepository.save(other);
+    }
+
+    @Test
+    public void testUploadAndDownloadAvatar() {
+        ResponseEntity<String> upload = upload(IMAGE);
+
+        assertEquals(HttpStatus.OK, upload.getStatusCode());
+
+        ResponseEntity<byte[]> fromDb = restTemplate.getForEntity(
+                getBaseUrl() + "/db/" + student.getId(), byte[].class);
+        assertEquals(HttpStatus.OK, fromDb.getStatusCode());
+        assertArrayEquals(IMAGE, fromDb.getBody());
+
+        ResponseEntity<byte[]> fromFile = restTemplate.getForEntity(
+                getBaseUrl() + "/file/" + student.getId(), byte[].class);
+        assertEquals(HttpStatus.OK, fromFile.getStatusCode());
+        assertArrayEquals(IMAGE, fromFile.getBody());
+    }
+
+    @Test
+    public void testUploadAvatarAsync() {
+        ResponseEntity<String> upload = upload(IMAGE, "/async/" + student.getId());
+
+        assertEquals(HttpStatus.OK, upload.getStatusCode());
+        assertArrayEquals(IMAGE, restTemplate.getForObject(getBaseUrl() + "/db/" + student.getId(), byte[].class));
+    }
+
+    @Test
+    public void testUploadAvatarAsyncIsShedWhenWriterIsSaturated() {
+        AvatarService target = AopTestUtils.getUltimateTargetObject(avatarService);
+        Semaphore writerPermits = (Semaphore) ReflectionTestUtils.getField(target, "writerPermits");
+        writerPermits.drainPermits();
+
+        ResponseEntity<String> upload = upload(IMAGE, "/async/" + student.getId());
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, upload.getStatusCode());
+        assertEquals("1", upload.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(avatarRepository.findByStudentId(student.getId()).isEmpty());
+    }
+
+    @Test
+    public void testUploadAvatarForMissingStudent() {
+        ResponseEntity<String> upload = upload(IMAGE, student.getId() + 1000);
+
+        assertEquals(HttpStatus.NOT_FOUND, upload.getStatusCode());
+    }
+
+    @Test
+    public void testIdenticalUploadsShareContent() {
+        Student other = createStudent("Ginny Weasley");
+
+        assertEquals(HttpStatus.OK, upload(IMAGE).getStatusCode());
+        assertEquals(HttpStatus.OK, upload(IMAGE, other.getId()).getStatusCode());
+
+        Avatar first = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+        Avatar second = avatarRepository.findByStudentId(other.getId()).orElseThrow();
+        assertEquals(first.getDataId(), second.getDataId());
+        assertEquals(first.getFilePath(), second.getFilePath());
+        assertEquals(1, avatarDataRepository.count());
+        assertEquals(2, avatarDataRepository.findById(first.getDataId()).orElseThrow().getRefCount());
+    }
+
+    @Test
+    public void testReplacedContentIsCollected() {
+        assertEquals(HttpStatus.OK, upload(IMAGE).getStatusCode());
+        Avatar original = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+
+        assertEquals(HttpStatus.OK, upload("a different image".getBytes()).getStatusCode());
+        Avatar replaced = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+        assertEquals(original.getId(), replaced.getId());
+        assertNotEquals(original.getDataId(), replaced.getDataId());
+
+        AvatarData orphan = avatarDataRepository.findById(original.getDataId()).orElseThrow();
+        assertEquals(0, orphan.getRefCount());
+
+        avatarContentCollector.collectOrphanedContent();
+
+        assertFalse(avatarDataRepository.existsById(original.getDataId()));
+        assertFalse(Files.exists(Path.of(original.getFilePath())));
+        assertTrue(avatarDataRepository.existsById(replaced.getDataId()));
+        assertTrue(Files.exists(Path.of(replaced.getFilePath())));
+    }
+
+    @Test
+    public void testContentPinnedByUploadInFlightIsKept() throws IOException {
+        assertEquals(HttpStatus.OK, upload(IMAGE).getStatusCode());
+        Avatar original = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+        assertEquals(HttpStatus.OK, upload("a different image".getBytes()).getStatusCode());
+        // Another upload of the same bytes has stored its file but not inserted its row yet
+        AvatarContentStore.StoredContent inFlight = avatarContentStore.store(
+                new MockMultipartFile("file", "avatar.png", "image/png", IMAGE));
+
+        avatarContentCollector.collectOrphanedContent();
+
+        assertFalse(avatarDataRepository.existsById(original.getDataId()));
+        assertTrue(Files.exists(inFlight.path()));
+
+        avatarContentStore.release(inFlight.checksum());
+
+        assertTrue(avatarContentStore.deleteIfUnreferenced(inFlight.checksum(), avatarDataRepository::existsByChecksum));
+        assertFalse(Files.exists(inFlight.path()));
+    }
+
+    @Test
+    public void testReplacedAvatarIsEvictedFromCache() {
+        assertEquals(HttpStatus.OK, upload(IMAGE).getStatusCode());
+        assertArrayEquals(IMAGE, restTemplate.getForObject(getBaseUrl() + "/db/" + student.getId(), byte[].class));
+        assertArrayEquals(IMAGE, restTemplate.getForObject(getBaseUrl() + "/db/" + student.getId(), byte[].class));
+
+        byte[] replacement = "a brand new image".getBytes();
+        assertEquals(HttpStatus.OK, upload(replacement).getStatusCode());
+
+        assertArrayEquals(replacement, restTemplate.getForObject(getBaseUrl() + "/db/" + student.getId(), byte[].class));
+        CacheStats stats = ((com.github.benmanes.caffeine.cache.Cache<?, ?>) cacheManager
+                .getCache(CacheConfig.AVATARS_CACHE).getNativeCache()).stats();
+        assertTrue(stats.hitCount() >= 1);
+        assertTrue(stats.missCount() >= 2);
+    }
+
+    @Test
+    public void testCacheMissLoadsThroughService() {
+        assertEquals(HttpStatus.OK, upload(IMAGE).getStatusCode());
+        assertArrayEquals(IMAGE, restTemplate.getForObject(getBaseUrl() + "/db/" + student.getId(), byte[].class));
+
+        assertEquals(1, meterRegistry.get(MetricsConfig.SERVICE_TIMER).tag("method", "loadAvatar").timer().count());
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> avatars =
+                ((CaffeineCache) cacheManager.getCache(CacheConfig.AVATARS_CACHE)).getNativeCache();
+        // Node, avatar, its strings and the student come to several hundred bytes
+        assertTrue(avatars.policy().eviction().orElseThrow().weightedSize().orElseThrow() > 400);
+    }
+
+    @Test
+    public void testDeletedStudentAvatarIsEvictedFromCache() {
+        assertEquals(HttpStatus.OK, upload(IMAGE).getStatusCode());
+        assertArrayEquals(IMAGE, restTemplate.getForObject(getBaseUrl() + "/db/" + student.getId(), byte[].class));
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> avatars =
+                ((CaffeineCache) cacheManager.getCache(CacheConfig.AVATARS_CACHE)).getNativeCache();
+        assertNotNull(avatars.getIfPresent(student.getId()));
+
+        restTemplate.delete("http://localhost:" + port + "/students/" + student.getId());
+
+        assertNull(avatars.getIfPresent(student.getId()));
+        assertEquals(HttpStatus.NOT_FOUND,
+                restTemplate.getForEntity(getBaseUrl() + "/db/" + student.getId(), byte[].class).getStatusCode());
+    }
+
+    @Test
+    public void testThumbnailsAreServedBySize() throws Exception {
+        assertEquals(HttpStatus.OK, upload(png(300, 200)).getStatusCode());
+        Avatar avatar = avatarRepository.findByStudentId(student.getId()).orElseThrow();
+        Path thumbnail = AvatarThumbnailService.thumbnailPath(Path.of(avatar.getFilePath()), 64);
+        for (int i = 0; i < 50 && !Files.exists(thumbnail); i++) {
+            Thread.sleep(100);
+        }
+
+        ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                getBaseUrl() + "/file/" + student.getId() + "?size=64", byte[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(response.getBody()));
+        assertEquals(64, image.getWidth());
+        assertEquals(43, image.getHeight());
+
+        ResponseEntity<String> unsupported = restTemplate.getForEntity(
+                getBaseUrl() + "/db/" + student.getId() + "?size=100", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, unsupported.getStatusCode());
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    private ResponseEntity<String> upload(byte[] image) {
+        return upload(image, student.getId());
+    }
+
+    private ResponseEntity<String> upload(byte[] image, Long studentId) {
+        return upload(image, "/" + studentId);
+    }
+
+    private ResponseEntity<String> upload(byte[] image, String path) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        HttpHeaders partHeaders = new HttpHeaders();
+        partHeaders.setContentType(MediaType.IMAGE_PNG);
+        body.add("file", new HttpEntity<>(new ByteArrayResource(image) {
+            @Override
+            public String getFilename() {
+                return "avatar.png";
+            }
+        }, partHeaders));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return restTemplate.postForEntity(getBaseUrl() + path,
+                new HttpEntity<>(body, headers), String.class);
+    }
+}
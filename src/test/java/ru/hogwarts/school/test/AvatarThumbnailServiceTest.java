@@ -0,0 +1,81 @@
+package ru.hogwarts.school.test;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.hogwarts.school.service.AvatarThumbnailService;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvatarThumbnailServiceTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    public void testImageWithinPixelLimitGetsThumbnails() throws IOException {
+        Path original = dir.resolve("small.png");
+        ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+
+        thumbnailService(10_000).generateThumbnailsAsync(original, "image/png");
+
+        assertTrue(Files.exists(AvatarThumbnailService.thumbnailPath(original, 64)));
+    }
+
+    @Test
+    public void testImageOverPixelLimitIsNotDecoded() throws IOException {
+        Path original = dir.resolve("small.png");
+        ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+
+        thumbnailService(9_999).generateThumbnailsAsync(original, "image/png");
+
+        assertFalse(Files.exists(AvatarThumbnailService.thumbnailPath(original, 64)));
+    }
+
+    @Test
+    public void testDecompressionBombHeaderIsRejected() throws IOException {
+        // A few dozen bytes claiming 50000x50000 RGBA, about 10 GB once decoded
+        Path original = dir.resolve("bomb.png");
+        Files.write(original, pngHeader(50_000, 50_000));
+
+        thumbnailService(25_000_000).generateThumbnailsAsync(original, "image/png");
+
+        assertFalse(Files.exists(AvatarThumbnailService.thumbnailPath(original, 64)));
+        assertFalse(Files.exists(AvatarThumbnailService.thumbnailPath(original, 256)));
+    }
+
+    private static AvatarThumbnailService thumbnailService(long maxPixels) {
+        return new AvatarThumbnailService(List.of(64, 256), Runnable::run, maxPixels);
+    }
+
+    private static byte[] pngHeader(int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        DataOutputStream ihdr = new DataOutputStream(chunk);
+        ihdr.write("IHDR".getBytes(StandardCharsets.US_ASCII));
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        ihdr.write(new byte[]{8, 6, 0, 0, 0});
+        byte[] data = chunk.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        out.writeInt(data.length - 4);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.hogwarts.school.test;
+
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityIdentityTest {
+
+    @Test
+    public void testEntitiesAreEqualByIdOnly() {
+        assertEquals(new Student(1L, "Harry Potter", 15, null), new Student(1L, "Harry", 16, null));
+        assertEquals(new Faculty(1L, "Gryffindor", "Red", null), new Faculty(1L, "Gryffindor", "Gold", List.of()));
+        assertNotEquals(new Student(1L, "Harry Potter", 15, null), new Student(2L, "Harry Potter", 15, null));
+        assertNotEquals(new Student(null, "Harry Potter", 15, null), new Student(null, "Harry Potter", 15, null));
+        assertNotEquals(new Student(1L, "Harry Potter", 15, null), new Faculty(1L, "Gryffindor", "Red", null));
+    }
+
+    @Test
+    public void testHashCodeSurvivesIdAssignment() {
+        Student student = new Student(null, "Ron Weasley", 15, null);
+        Set<Student> students = new HashSet<>();
+        students.add(student);
+
+        student.setId(42L);
+
+        assertTrue(students.contains(student));
+    }
+
+    @Test
+    public void testBidirectionalGraphHashesAndPrints() {
+        List<Student> students = new ArrayList<>();
+        Faculty faculty = new Faculty(1L, "Gryffindor", "Red", students);
+        Student student = new Student(2L, "Hermione Granger", 15, faculty);
+        students.add(student);
+        Avatar avatar = new Avatar(3L, "avatars/2.png", 10, "image/png", 4L, student);
+        student.setAvatar(avatar);
+
+        assertEquals(faculty.hashCode(), new Faculty(1L, null, null, null).hashCode());
+        assertEquals("Student{id=2, name='Hermione Granger', age=15, facultyId=1}", student.toString());
+        assertEquals("Avatar{id=3, filePath='avatars/2.png', fileSize=10, mediaType='image/png', dataId=4, studentId=2}",
+                avatar.toString());
+    }
+}
@@ -4,11 +4,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.hogwarts.school.controller.FacultyController;
+import ru.hogwarts.school.dto.StudentDto;
 import ru.hogwarts.school.model.Faculty;
-import ru.hogwarts.school.model.Student;
 import ru.hogwarts.school.service.FacultyService;
 
 import java.util.Collections;
@@ -16,6 +19,7 @@ import java.util.Collections;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -132,13 +136,10 @@ public class FacultyControllerTest {
 
     @Test
     public void testGetStudentsByFacultyId() throws Exception {
-        Student student = new Student();
-        student.setId(1L);
-        student.setName("Harry Potter");
-        student.setAge(15);
+        StudentDto student = new StudentDto(1L, "Harry Potter", 15, null);
 
-        when(facultyService.getStudentsByFacultyId(1L))
-                .thenReturn(Collections.singletonList(student));
+        when(facultyService.getStudentsByFacultyId(1L, 0, 100, "id", "asc"))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(student)));
 
         mockMvc.perform(get("/faculty/1/students")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -147,4 +148,30 @@ public class FacultyControllerTest {
                 .andExpect(jsonPath("$[0].name").value("Harry Potter"))
                 .andExpect(jsonPath("$[0].age").value(15));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetStudentsByFacultyIdNextPageLink() throws Exception {
+        StudentDto student = new StudentDto(2L, "Ron Weasley", 15, null);
+
+        when(facultyService.getStudentsByFacultyId(1L, 0, 1, "name", "desc"))
+                .thenReturn(new SliceImpl<>(Collections.singletonList(student), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/faculty/1/students")
+                        .param("size", "1")
+                        .param("sort", "name")
+                        .param("direction", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.LINK,
+                        "<http://localhost/faculty/1/students?page=1&size=1&sort=name&direction=desc>; rel=\"next\""))
+                .andExpect(jsonPath("$[0].name").value("Ron Weasley"));
+    }
+
+    @Test
+    public void testGetStudentsByFacultyIdWithoutStudents() throws Exception {
+        when(facultyService.getStudentsByFacultyId(1L, 0, 100, "id", "asc"))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        mockMvc.perform(get("/faculty/1/students"))
+                .andExpect(status().isNotFound());
+    }
+}
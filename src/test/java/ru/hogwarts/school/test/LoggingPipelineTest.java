@@ -0,0 +1,66 @@
+package ru.hogwarts.school.test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import jakarta.servlet.http.HttpServlet;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.hogwarts.school.config.LogSamplingTurboFilter;
+import ru.hogwarts.school.config.RequestIdFilter;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoggingPipelineTest {
+
+    @Test
+    public void testRequestIdIsReusedAndVisibleInMdc() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/students/1");
+        request.addHeader(RequestIdFilter.HEADER, "abc-123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> seen = new AtomicReference<>();
+
+        new RequestIdFilter().doFilter(request, response,
+                new MockFilterChain(new HttpServlet() {
+                }, (req, res, chain) -> seen.set(MDC.get(RequestIdFilter.MDC_KEY))));
+
+        assertEquals("abc-123", seen.get());
+        assertEquals("abc-123", response.getHeader(RequestIdFilter.HEADER));
+        assertNull(MDC.get(RequestIdFilter.MDC_KEY));
+    }
+
+    @Test
+    public void testMalformedRequestIdIsReplaced() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/students/1");
+        request.addHeader(RequestIdFilter.HEADER, "forged\nINFO line");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new RequestIdFilter().doFilter(request, response, new MockFilterChain());
+
+        String requestId = response.getHeader(RequestIdFilter.HEADER);
+        assertNotNull(requestId);
+        assertTrue(requestId.matches("[0-9a-f-]{36}"), requestId);
+    }
+
+    @Test
+    public void testSamplingDropsOnlyInfoOfMatchingLoggers() {
+        LoggerContext context = new LoggerContext();
+        LogSamplingTurboFilter filter = new LogSamplingTurboFilter();
+        filter.setLoggerPrefix("ru.hogwarts.school.service");
+        filter.setRate(0.0);
+        filter.start();
+
+        ch.qos.logback.classic.Logger service = context.getLogger("ru.hogwarts.school.service.StudentService");
+        ch.qos.logback.classic.Logger other = context.getLogger("ru.hogwarts.school.controller.StudentController");
+
+        assertEquals(FilterReply.DENY, filter.decide(null, service, Level.INFO, "msg", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, service, Level.WARN, "msg", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, service, Level.ERROR, "msg", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, other, Level.INFO, "msg", null, null));
+    }
+}
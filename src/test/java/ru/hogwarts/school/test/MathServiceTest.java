@@ -0,0 +1,95 @@
+package ru.hogwarts.school.test;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.exception.ComputationTimeoutException;
+import ru.hogwarts.school.service.MathService;
+import ru.hogwarts.school.service.MathService.RangePredicate;
+
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MathServiceTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private MathService mathService(Duration timeout) {
+        return mathService(timeout, 4);
+    }
+
+    private MathService mathService(Duration timeout, int maxConcurrentRequests) {
+        return new MathService(pool, 100, maxConcurrentRequests, timeout, 1_000_000_000L);
+    }
+
+    @Test
+    public void testRangeReductions() {
+        MathService mathService = mathService(Duration.ofSeconds(10));
+
+        assertEquals(500_000_500_000L, mathService.sum(1, 1_000_000));
+        assertEquals(0L, mathService.sum(-1_000, 1_000));
+        assertEquals(333_833_500L, mathService.sumOfSquares(1, 1_000));
+        assertEquals(78_498L, mathService.count(1, 1_000_000, RangePredicate.PRIME));
+        assertEquals(500_000L, mathService.count(1, 1_000_000, RangePredicate.EVEN));
+        assertEquals(1_000L, mathService.count(1, 1_000_000, RangePredicate.PERFECT_SQUARE));
+        assertEquals(Long.MAX_VALUE, mathService.sum(Long.MAX_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testMemoizedResultIsReused() {
+        MathService mathService = mathService(Duration.ofSeconds(10));
+        assertEquals(78_498L, mathService.count(1, 1_000_000, RangePredicate.PRIME));
+        pool.shutdownNow();
+
+        assertEquals(78_498L, mathService.count(1, 1_000_000, RangePredicate.PRIME));
+        assertThrows(RejectedExecutionException.class, () -> mathService.count(1, 1_000, RangePredicate.PRIME));
+    }
+
+    @Test
+    public void testInvalidRequestsAreRejected() {
+        MathService mathService = mathService(Duration.ofSeconds(10));
+
+        assertThrows(IllegalArgumentException.class, () -> mathService.sum(10, 1));
+        assertThrows(IllegalArgumentException.class, () -> mathService.sum(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> mathService.sumOfSquares(1, 10_000_000));
+        assertThrows(IllegalArgumentException.class, () -> RangePredicate.parse("fibonacci"));
+        assertEquals(RangePredicate.PERFECT_SQUARE, RangePredicate.parse("perfect-square"));
+    }
+
+    @Test
+    public void testSlowComputationTimesOut() {
+        MathService mathService = mathService(Duration.ofMillis(50));
+
+        assertThrows(ComputationTimeoutException.class,
+                () -> mathService.count(1_000_000_000_000L, 1_000_900_000_000L, RangePredicate.PRIME));
+    }
+
+    @Test
+    public void testTimedOutComputationReleasesItsPermit() throws InterruptedException {
+        MathService mathService = mathService(Duration.ofMillis(200), 1);
+
+        // No 1024-aligned number in range, and each primality test takes seconds
+        assertThrows(ComputationTimeoutException.class,
+                () -> mathService.count(9_223_372_036_854_775_000L, 9_223_372_036_854_775_806L, RangePredicate.PRIME));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (true) {
+            try {
+                assertEquals(55L, mathService.sum(1, 10));
+                return;
+            } catch (RejectedExecutionException e) {
+                if (System.nanoTime() - deadline > 0) {
+                    fail("Permit of the timed-out computation was not released");
+                }
+                Thread.sleep(20);
+            }
+        }
+    }
+}
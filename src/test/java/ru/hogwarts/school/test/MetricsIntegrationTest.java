@@ -0,0 +1,119 @@
+package ru.hogwarts.school.test;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarDataRepository;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.endpoints.web.exposure.include=prometheus",
+        "management.metrics.distribution.percentiles-histogram.http.server.requests=true"
+})
+@AutoConfigureObservability
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class MetricsIntegrationTest {
+
+    private static final byte[] IMAGE = "not really a png, but close enough".getBytes();
+
+    @TempDir
+    static Path storageDir;
+
+    @DynamicPropertySource
+    static void avatarStorage(DynamicPropertyRegistry registry) {
+        registry.add("avatar.storage.dir", storageDir::toString);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private AvatarDataRepository avatarDataRepository;
+
+    private String getBaseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        avatarRepository.deleteAll();
+        avatarDataRepository.deleteAll();
+        studentRepository.deleteAll();
+    }
+
+    @Test
+    public void testPrometheusEndpointExposesApplicationMetrics() {
+        Student student = studentRepository.save(new Student(null, "Neville Longbottom", 15, null));
+        assertEquals(HttpStatus.OK, upload(student.getId()).getStatusCode());
+        restTemplate.getForEntity(getBaseUrl() + "/students/" + student.getId(), String.class);
+        restTemplate.getForEntity(getBaseUrl() + "/avatar/db/" + student.getId(), byte[].class);
+        restTemplate.getForEntity(getBaseUrl() + "/avatar/file/" + student.getId(), byte[].class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                getBaseUrl() + "/actuator/prometheus", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String scrape = response.getBody();
+        assertNotNull(scrape);
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"), "endpoint latency histogram");
+        assertTrue(scrape.contains("uri=\"/students/{id}\""), "per-endpoint tag");
+        assertTrue(scrape.contains("school_service_seconds_count{")
+                && scrape.contains("class=\"ru.hogwarts.school.service.StudentService\"")
+                && scrape.contains("method=\"getStudent\""), "service timer");
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_count{"), "repository timer");
+        assertTrue(scrape.contains("cache_gets_total{") && scrape.contains("cache=\"avatars\""), "cache counters");
+        assertTrue(scrape.contains("cache_hit_ratio{"), "cache hit ratio");
+        assertTrue(scrape.contains("avatar_bytes_served_bytes_total{source=\"db\"} " + (double) IMAGE.length),
+                "bytes served from the database");
+        assertTrue(scrape.contains("avatar_bytes_served_bytes_total{source=\"file\"} " + (double) IMAGE.length),
+                "bytes served from files");
+    }
+
+    private ResponseEntity<String> upload(Long studentId) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        HttpHeaders partHeaders = new HttpHeaders();
+        partHeaders.setContentType(MediaType.IMAGE_PNG);
+        body.add("file", new HttpEntity<>(new ByteArrayResource(IMAGE) {
+            @Override
+            public String getFilename() {
+                return "avatar.png";
+            }
+        }, partHeaders));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return restTemplate.postForEntity(getBaseUrl() + "/avatar/" + studentId,
+                new HttpEntity<>(body, headers), String.class);
+    }
+}
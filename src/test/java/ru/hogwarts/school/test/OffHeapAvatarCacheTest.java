@@ -0,0 +1,93 @@
+package ru.hogwarts.school.test;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.hogwarts.school.service.OffHeapAvatarCache;
+import ru.hogwarts.school.service.OffHeapAvatarCache.CachedAvatar;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapAvatarCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testPutAndReadAcrossPages() throws Exception {
+        OffHeapAvatarCache cache = cache(DataSize.ofKilobytes(64), "");
+        byte[] image = randomBytes(10_000);
+
+        assertTrue(cache.put(1L, new ByteArrayInputStream(image), image.length));
+
+        try (CachedAvatar cached = cache.acquire(1L).orElseThrow()) {
+            assertEquals(image.length, cached.length());
+            try (InputStream in = cached.openStream()) {
+                assertArrayEquals(image, in.readAllBytes());
+            }
+            assertArrayEquals(image, cached.asResource().getContentAsByteArray());
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+        OffHeapAvatarCache cache = cache(DataSize.ofKilobytes(8), "");
+        byte[] first = randomBytes(3000);
+        byte[] second = randomBytes(3000);
+        byte[] third = randomBytes(3000);
+
+        assertTrue(cache.put(1L, new ByteArrayInputStream(first), first.length));
+        assertTrue(cache.put(2L, new ByteArrayInputStream(second), second.length));
+        cache.acquire(1L).orElseThrow().close();
+        assertTrue(cache.put(3L, new ByteArrayInputStream(third), third.length));
+
+        assertTrue(cache.acquire(1L).isPresent());
+        assertTrue(cache.acquire(2L).isEmpty());
+        assertTrue(cache.acquire(3L).isPresent());
+    }
+
+    @Test
+    public void testPinnedEntryIsNotOverwritten() throws Exception {
+        OffHeapAvatarCache cache = cache(DataSize.ofKilobytes(4), "");
+        byte[] first = randomBytes(4096);
+        byte[] second = randomBytes(4096);
+
+        assertTrue(cache.put(1L, new ByteArrayInputStream(first), first.length));
+        Optional<CachedAvatar> pinned = cache.acquire(1L);
+
+        assertFalse(cache.put(2L, new ByteArrayInputStream(second), second.length));
+        assertArrayEquals(first, pinned.orElseThrow().openStream().readAllBytes());
+
+        pinned.get().close();
+        assertTrue(cache.put(2L, new ByteArrayInputStream(second), second.length));
+        assertEquals(4096, cache.usedBytes());
+    }
+
+    @Test
+    public void testMappedFileBacking() throws Exception {
+        OffHeapAvatarCache cache = cache(DataSize.ofKilobytes(16), tempDir.resolve("avatars.cache").toString());
+        byte[] image = randomBytes(5000);
+
+        assertTrue(cache.put(1L, new ByteArrayInputStream(image), image.length));
+        try (CachedAvatar cached = cache.acquire(1L).orElseThrow()) {
+            assertArrayEquals(image, cached.openStream().readAllBytes());
+        }
+        cache.close();
+    }
+
+    private static OffHeapAvatarCache cache(DataSize capacity, String file) throws Exception {
+        return new OffHeapAvatarCache(capacity, DataSize.ofKilobytes(1), DataSize.ofKilobytes(16), file);
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,180 @@
+package ru.hogwarts.school.test;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.hogwarts.school.dto.RosterJobStatus;
+import ru.hogwarts.school.model.Avatar;
+import ru.hogwarts.school.model.Faculty;
+import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.repository.AvatarRepository;
+import ru.hogwarts.school.repository.FacultyRepository;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.StudentAgeIndex;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the number of SQL statements each read endpoint issues, so an association that
+ * starts loading row by row shows up as a failing test rather than a slow page.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class QueryCountTest {
+
+    private static final int STUDENTS = 10;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private FacultyRepository facultyRepository;
+
+    @Autowired
+    private AvatarRepository avatarRepository;
+
+    @Autowired
+    private StudentAgeIndex studentAgeIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Faculty faculty;
+    private List<Student> students;
+
+    @BeforeEach
+    public void setUp() {
+        avatarRepository.deleteAll();
+        studentRepository.deleteAll();
+        facultyRepository.deleteAll();
+
+        faculty = facultyRepository.save(new Faculty(null, "Ravenclaw", "Blue", null));
+        students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = studentRepository.save(new Student(null, "Student " + i, 12 + i % 5, faculty));
+            avatarRepository.save(new Avatar(null, "avatars/" + i, 10, "image/png", null, student));
+            students.add(student);
+        }
+        studentAgeIndex.rebuild();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testListStudents() {
+        assertStatements(1, "/students");
+    }
+
+    @Test
+    public void testStreamStudents() {
+        assertStatements(1, "/students/stream");
+    }
+
+    @Test
+    public void testStudentsByAge() {
+        assertStatements(1, "/students/ageBetween?minAge=12&maxAge=16");
+    }
+
+    @Test
+    public void testStudentCountByAgeFromIndex() {
+        assertStatements(0, "/students/ageBetween/count?minAge=12&maxAge=16");
+    }
+
+    @Test
+    public void testLastFiveStudents() {
+        assertStatements(1, "/students/last-five");
+    }
+
+    @Test
+    public void testStudentById() {
+        assertStatements(1, "/students/" + students.get(0).getId());
+    }
+
+    @Test
+    public void testFacultyByStudentId() {
+        assertStatements(1, "/students/" + students.get(0).getId() + "/faculty");
+    }
+
+    @Test
+    public void testFacultyById() {
+        assertStatements(1, "/faculty/" + faculty.getId());
+    }
+
+    @Test
+    public void testStudentsByFacultyId() {
+        assertStatements(2, "/faculty/" + faculty.getId() + "/students");
+    }
+
+    @Test
+    public void testSortedRosterPage() {
+        assertStatements(2, "/faculty/" + faculty.getId() + "/students?page=1&size=3&sort=age&direction=desc");
+    }
+
+    @Test
+    public void testLongestFacultyName() {
+        facultyRepository.save(new Faculty(null, "Hufflepuff House", "Yellow", null));
+        statistics.clear();
+
+        assertStatements(1, "/faculty/longest-name");
+        assertEquals("Hufflepuff House", restTemplate.getForObject(
+                "http://localhost:" + port + "/faculty/longest-name", String.class));
+    }
+
+    @Test
+    public void testStatisticsDoNotQuery() {
+        assertStatements(0, "/students/count");
+        assertStatements(0, "/students/average-age");
+        assertStatements(0, "/students/statistics");
+    }
+
+    @Test
+    public void testPrintStudentsParallel() throws InterruptedException {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + "/students/print-parallel", String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode(), response.getBody());
+
+        RosterJobStatus status = null;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            status = restTemplate.getForObject(response.getHeaders().getLocation(), RosterJobStatus.class);
+            if (status.getFinishedAt() != null) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(STUDENTS, status.getProcessedItems());
+        // The six-student check and the id bounds in the request thread, then one short
+        // page per partition on the workers
+        assertEquals(2 + status.getPartitions(), statistics.getPrepareStatementCount());
+    }
+
+    private void assertStatements(long expected, String path) {
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                "http://localhost:" + port + path, String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode(), response.getBody());
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements for " + path);
+    }
+}
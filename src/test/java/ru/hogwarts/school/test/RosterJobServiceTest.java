@@ -0,0 +1,173 @@
+package ru.hogwarts.school.test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.hogwarts.school.config.AsyncConfig;
+import ru.hogwarts.school.dto.RosterJobStatus;
+import ru.hogwarts.school.exception.EntityNotFoundException;
+import ru.hogwarts.school.service.RosterJobService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RosterJobServiceTest {
+
+    private ThreadPoolTaskExecutor executor;
+    private RosterJobService rosterJobService;
+
+    @BeforeEach
+    public void setUp() {
+        executor = new AsyncConfig().rosterJobExecutor(new SimpleMeterRegistry(), 4, 4);
+        executor.initialize();
+        rosterJobService = new RosterJobService(executor, 1, 10, 2, 3);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testExclusiveJobRunsPartitionsOnOneWorker() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(1, 100).boxed().toList();
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+
+        RosterJobStatus submitted = rosterJobService.submit("test", new ListRoster(ids), 10, 4, true, processed::add);
+        RosterJobStatus status = awaitFinished(submitted.getId());
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(4, status.getPartitions());
+        assertEquals(4, status.getCompletedPartitions());
+        assertEquals(100, status.getProcessedItems());
+        assertEquals(1, status.getParallelism());
+        assertNotNull(status.getItemsPerSecond());
+        assertEquals(ids, processed);
+    }
+
+    @Test
+    public void testJobPagesThroughIdRangesOnWorkers() throws Exception {
+        // Sparse ids: partitions are id ranges, pages are bounded by the chunk size
+        List<Long> ids = LongStream.rangeClosed(1, 60).map(i -> i * i).boxed().toList();
+        ListRoster roster = new ListRoster(ids);
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+
+        RosterJobStatus submitted = rosterJobService.submit("test", roster, 7, 3, false, processed::add);
+        RosterJobStatus status = awaitFinished(submitted.getId());
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(3, status.getPartitions());
+        assertEquals(3, status.getParallelism());
+        assertEquals(60, status.getProcessedItems());
+        assertEquals(ids, processed.stream().sorted().toList());
+        assertTrue(roster.pageSizes.stream().allMatch(size -> size <= 7));
+        assertTrue(roster.pageThreads.stream().allMatch(thread -> thread.startsWith("roster-job-")));
+    }
+
+    @Test
+    public void testEmptyRosterCompletesAtOnce() throws Exception {
+        RosterJobStatus submitted = rosterJobService.submit("empty", new ListRoster(List.of()), false, item -> { });
+
+        RosterJobStatus status = awaitFinished(submitted.getId());
+
+        assertEquals("COMPLETED", status.getState());
+        assertEquals(0, status.getPartitions());
+        assertEquals(0, status.getProcessedItems());
+    }
+
+    @Test
+    public void testActiveJobLimitRejectsNewJobs() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RosterJobStatus running = rosterJobService.submit("blocked", new ListRoster(List.of(1L)), false, item -> await(release));
+
+        assertThrows(RejectedExecutionException.class,
+                () -> rosterJobService.submit("rejected", new ListRoster(List.of(1L)), false, item -> { }));
+
+        release.countDown();
+        assertEquals("COMPLETED", awaitFinished(running.getId()).getState());
+        RosterJobStatus next = rosterJobService.submit("next", new ListRoster(List.of(1L, 2L, 3L)), false, item -> { });
+        assertEquals("COMPLETED", awaitFinished(next.getId()).getState());
+    }
+
+    @Test
+    public void testFailedJobReportsError() throws Exception {
+        RosterJobStatus submitted = rosterJobService.submit("failing", new ListRoster(List.of(1L, 2L, 3L, 4L)), false, item -> {
+            throw new IllegalStateException("boom");
+        });
+
+        RosterJobStatus status = awaitFinished(submitted.getId());
+
+        assertEquals("FAILED", status.getState());
+        assertEquals("boom", status.getError());
+        assertThrows(EntityNotFoundException.class, () -> rosterJobService.getStatus(submitted.getId() + 1));
+    }
+
+    private RosterJobStatus awaitFinished(long id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        RosterJobStatus status = rosterJobService.getStatus(id);
+        while (status.getFinishedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = rosterJobService.getStatus(id);
+        }
+        assertNotNull(status.getFinishedAt(), "job " + id + " did not finish");
+        return status;
+    }
+
+    /**
+     * Ids kept in memory and paged by keyset, as the student table is.
+     */
+    private static final class ListRoster implements RosterJobService.Roster<Long> {
+        private final List<Long> ids;
+        private final List<Integer> pageSizes = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> pageThreads = Collections.synchronizedList(new ArrayList<>());
+
+        ListRoster(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public long firstId() {
+            return ids.isEmpty() ? 1 : ids.get(0);
+        }
+
+        @Override
+        public long lastId() {
+            return ids.isEmpty() ? 0 : ids.get(ids.size() - 1);
+        }
+
+        @Override
+        public long size() {
+            return ids.size();
+        }
+
+        @Override
+        public List<Long> page(long afterId, long lastId, int limit) {
+            List<Long> page = ids.stream().filter(id -> id > afterId && id <= lastId).limit(limit).toList();
+            pageSizes.add(page.size());
+            pageThreads.add(Thread.currentThread().getName());
+            return page;
+        }
+
+        @Override
+        public long idOf(Long item) {
+            return item;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,21 +1,36 @@
 package ru.hogwarts.school.test;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 import ru.hogwarts.school.model.Faculty;
 import ru.hogwarts.school.model.Student;
+import ru.hogwarts.school.dto.ImportReport;
+import ru.hogwarts.school.dto.RosterJobStatus;
+import ru.hogwarts.school.dto.StudentStatisticsDto;
+import ru.hogwarts.school.repository.FacultyRepository;
 import ru.hogwarts.school.repository.StudentRepository;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,6 +47,15 @@ public class StudentControllerTest {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private FacultyRepository facultyRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RequestMappingHandlerAdapter handlerAdapter;
+
     private String getBaseUrl() {
         return "http://localhost:" + port + "/students";
     }
@@ -120,6 +144,233 @@ public class StudentControllerTest {
         assertEquals("Harry Potter", response.getBody()[0].getName());
     }
 
+    @Test
+    public void testGetAllStudentsWithoutPagingParameters() {
+        studentRepository.saveAll(IntStream.range(0, 150)
+                .mapToObj(i -> new Student(null, "Student " + i, 12 + i % 5, null))
+                .toList());
+
+        ResponseEntity<Student[]> response = restTemplate.getForEntity(getBaseUrl(), Student[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(150, response.getBody().length);
+        assertNull(response.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void testGetStudentsByKeyset() {
+        List<Student> saved = IntStream.range(0, 5)
+                .mapToObj(i -> studentRepository.save(new Student(null, "Student " + i, 12 + i, null)))
+                .collect(Collectors.toList());
+
+        ResponseEntity<Student[]> first = restTemplate.getForEntity(
+                getBaseUrl() + "?limit=3", Student[].class);
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals(List.of("Student 0", "Student 1", "Student 2"),
+                Arrays.stream(first.getBody()).map(Student::getName).collect(Collectors.toList()));
+        String link = first.getHeaders().getFirst(HttpHeaders.LINK);
+        assertNotNull(link);
+        assertTrue(link.contains("afterId=" + saved.get(2).getId()));
+        assertTrue(link.endsWith("rel=\"next\""));
+
+        ResponseEntity<Student[]> second = restTemplate.getForEntity(
+                getBaseUrl() + "?limit=3&afterId=" + saved.get(2).getId(), Student[].class);
+
+        assertEquals(List.of("Student 3", "Student 4"),
+                Arrays.stream(second.getBody()).map(Student::getName).collect(Collectors.toList()));
+        assertNull(second.getHeaders().getFirst(HttpHeaders.LINK));
+
+        ResponseEntity<String> tooLarge = restTemplate.getForEntity(
+                getBaseUrl() + "?limit=100000", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, tooLarge.getStatusCode());
+    }
+
+    @Test
+    public void testStreamAllStudents() {
+        IntStream.range(0, 3)
+                .forEach(i -> studentRepository.save(new Student(null, "Student " + i, 12 + i, null)));
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                getBaseUrl() + "/stream", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = response.getBody().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Student 0\""));
+        assertTrue(lines[2].contains("\"name\":\"Student 2\""));
+        assertEquals(1, meterRegistry.get("executor.task.queued").tag("name", "mvcAsyncExecutor").timer().count());
+    }
+
+    @Test
+    public void testStreamsAreNotCutOffByAsyncTimeout() {
+        assertEquals(-1L, ReflectionTestUtils.getField(handlerAdapter, "asyncRequestTimeout"));
+    }
+
+    @Test
+    public void testStatisticsFollowChanges() {
+        Faculty faculty = facultyRepository.save(new Faculty(null, "Hufflepuff", "Yellow", null));
+        Student first = restTemplate.postForObject(getBaseUrl(),
+                new Student(null, "Cedric Diggory", 12, faculty), Student.class);
+        Student second = restTemplate.postForObject(getBaseUrl(),
+                new Student(null, "Hannah Abbott", 16, null), Student.class);
+
+        assertEquals(2, restTemplate.getForObject(getBaseUrl() + "/count", Integer.class));
+        assertEquals(14.0, restTemplate.getForObject(getBaseUrl() + "/average-age", Double.class));
+
+        restTemplate.put(getBaseUrl() + "/" + first.getId(), new Student(null, "Cedric Diggory", 17, faculty));
+        restTemplate.delete(getBaseUrl() + "/" + second.getId());
+
+        StudentStatisticsDto statistics = restTemplate.getForObject(
+                getBaseUrl() + "/statistics", StudentStatisticsDto.class);
+        assertEquals(1, statistics.getCount());
+        assertEquals(17.0, statistics.getAverageAge());
+        assertEquals(1, statistics.getFaculties().size());
+        assertEquals(faculty.getId(), statistics.getFaculties().get(0).getFacultyId());
+        assertEquals(1, statistics.getFaculties().get(0).getCount());
+    }
+
+    @Test
+    public void testStudentsByAgeFollowChanges() {
+        Student young = restTemplate.postForObject(getBaseUrl(), new Student(null, "Dennis Creevey", 11, null), Student.class);
+        restTemplate.postForObject(getBaseUrl(), new Student(null, "Colin Creevey", 12, null), Student.class);
+        restTemplate.postForObject(getBaseUrl(), new Student(null, "Percy Weasley", 17, null), Student.class);
+
+        ResponseEntity<Student[]> response = restTemplate.getForEntity(
+                getBaseUrl() + "/ageBetween?minAge=11&maxAge=13", Student[].class);
+        assertEquals(List.of("Dennis Creevey", "Colin Creevey"),
+                Arrays.stream(response.getBody()).map(Student::getName).collect(Collectors.toList()));
+
+        restTemplate.put(getBaseUrl() + "/" + young.getId(), new Student(null, "Dennis Creevey", 14, null));
+
+        assertEquals(1L, restTemplate.getForObject(
+                getBaseUrl() + "/ageBetween/count?minAge=11&maxAge=13", Long.class));
+        assertEquals(2L, restTemplate.getForObject(
+                getBaseUrl() + "/ageBetween/count?minAge=14&maxAge=200", Long.class));
+    }
+
+    @Test
+    public void testStudentsByAgeRecheckStaleIndex() {
+        Student student = restTemplate.postForObject(getBaseUrl(), new Student(null, "Ginny Weasley", 12, null), Student.class);
+        // Bypasses the service, so the age index never hears about the change
+        student.setAge(16);
+        studentRepository.save(student);
+
+        ResponseEntity<Student[]> response = restTemplate.getForEntity(
+                getBaseUrl() + "/ageBetween?minAge=11&maxAge=13", Student[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(0, response.getBody().length);
+    }
+
+    @Test
+    public void testImportStudentsFromCsv() {
+        Faculty faculty = facultyRepository.save(new Faculty(null, "Slytherin", "Green", null));
+        String csv = "name,age,faculty_id\n"
+                + "Draco Malfoy,15," + faculty.getId() + "\n"
+                + "\"Crabbe, Vincent\",15,\n"
+                + ",14,\n"
+                + "Gregory Goyle,ten,\n"
+                + "Pansy Parkinson,15," + (faculty.getId() + 100) + "\n"
+                + "Theodore Nott,9,\n"
+                + "Blaise Zabini,15,\n";
+
+        ImportReport report = postImport(csv, new MediaType("text", "csv"));
+
+        assertEquals(3, report.getImported());
+        assertEquals(4, report.getFailed());
+        assertEquals(List.of(4L, 5L, 6L, 7L),
+                report.getErrors().stream().map(ImportReport.RowError::getRow).collect(Collectors.toList()));
+        assertEquals("Name is mandatory", report.getErrors().get(0).getMessage());
+        assertEquals(3, restTemplate.getForObject(getBaseUrl() + "/count", Integer.class));
+        assertTrue(studentRepository.findAll().stream().anyMatch(s -> s.getName().equals("Crabbe, Vincent")));
+    }
+
+    @Test
+    public void testImportStudentsFromJson() {
+        String json = "[{\"name\":\"Luna Lovegood\",\"age\":14},"
+                + "{\"name\":\"\",\"age\":14},"
+                + "{\"name\":\"Cho Chang\",\"age\":16}]";
+
+        ImportReport report = postImport(json, MediaType.APPLICATION_JSON);
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(2L, report.getErrors().get(0).getRow());
+        assertEquals(2, studentRepository.count());
+    }
+
+    private ImportReport postImport(String body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        ResponseEntity<ImportReport> response = restTemplate.postForEntity(
+                getBaseUrl() + "/import", new HttpEntity<>(body, headers), ImportReport.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    @Test
+    public void testExportStudentsAsCsv() {
+        Faculty faculty = facultyRepository.save(new Faculty(null, "Gryffindor", "Red", null));
+        Student harry = studentRepository.save(new Student(null, "Harry Potter", 15, faculty));
+        Student crabbe = studentRepository.save(new Student(null, "Crabbe, \"Vince\"", 15, null));
+
+        ResponseEntity<String> response = restTemplate.getForEntity(getBaseUrl() + "/export", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getHeaders().getContentType().isCompatibleWith(new MediaType("text", "csv")));
+        assertEquals("id,name,age,faculty\n"
+                        + harry.getId() + ",Harry Potter,15,Gryffindor\n"
+                        + crabbe.getId() + ",\"Crabbe, \"\"Vince\"\"\",15,\n",
+                response.getBody());
+    }
+
+    @Test
+    public void testExportStudentsAsGzippedNdjson() throws IOException {
+        Faculty faculty = facultyRepository.save(new Faculty(null, "Ravenclaw", "Blue", null));
+        Student luna = studentRepository.save(new Student(null, "Luna Lovegood", 14, faculty));
+
+        ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                getBaseUrl() + "/export?format=ndjson&gzip=true", byte[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertEquals("{\"id\":" + luna.getId() + ",\"name\":\"Luna Lovegood\",\"age\":14,\"faculty\":\"Ravenclaw\"}\n",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testExportStudentsRejectsUnknownFormat() {
+        ResponseEntity<String> response = restTemplate.getForEntity(getBaseUrl() + "/export?format=xml", String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void testSearchStudents() {
+        List.of("Hermione Granger", "Harry Potter", "Harry_Hook", "Ron Weasley")
+                .forEach(name -> studentRepository.save(new Student(null, name, 15, null)));
+
+        assertEquals(List.of("Harry Potter", "Harry_Hook"), searchNames("?prefix=har"));
+        assertEquals(List.of("Hermione Granger"), searchNames("?contains=MION"));
+        assertEquals(List.of("Harry_Hook"), searchNames("?contains=_"));
+        assertEquals(List.of(), searchNames("?prefix=%25"));
+
+        ResponseEntity<String> both = restTemplate.getForEntity(
+                getBaseUrl() + "/search?prefix=h&contains=r", String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, both.getStatusCode());
+    }
+
+    private List<String> searchNames(String query) {
+        ResponseEntity<Student[]> response = restTemplate.getForEntity(
+                getBaseUrl() + "/search" + query, Student[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return Arrays.stream(response.getBody()).map(Student::getName).collect(Collectors.toList());
+    }
+
     @Test
     public void testGetFacultyByStudentId() {
         Faculty faculty = new Faculty();
@@ -175,6 +426,33 @@ public class StudentControllerTest {
         assertEquals("Printing student names in parallel mode started", response.getBody());
     }
 
+    @Test
+    public void testPrintParallel_ReportsJobStatus() throws InterruptedException {
+        studentRepository.saveAll(IntStream.range(0, 6)
+                .mapToObj(i -> new Student(null, "Student " + i, 11 + i, null))
+                .toList());
+
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                getBaseUrl() + "/print-parallel", String.class);
+        assertNotNull(response.getHeaders().getLocation());
+
+        RosterJobStatus status = null;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            status = restTemplate.getForObject(response.getHeaders().getLocation(), RosterJobStatus.class);
+            if ("COMPLETED".equals(status.getState())) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        assertEquals("COMPLETED", status.getState());
+        assertEquals("print-parallel", status.getName());
+        assertEquals(3, status.getPartitions());
+        assertEquals(6, status.getProcessedItems());
+
+        assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity(
+                getBaseUrl() + "/jobs/" + (status.getId() + 1), String.class).getStatusCode());
+    }
+
     @Test
     public void testPrintParallel_NotEnoughStudents() {
         ResponseEntity<String> response = restTemplate.getForEntity(
@@ -0,0 +1,68 @@
+package ru.hogwarts.school.test;
+
+import org.junit.jupiter.api.Test;
+import ru.hogwarts.school.repository.StudentRepository;
+import ru.hogwarts.school.service.StudentChangedEvent;
+import ru.hogwarts.school.service.StudentChangedEvent.State;
+import ru.hogwarts.school.service.StudentStatistics;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StudentStatisticsTest {
+
+    @Test
+    public void testChangeSeenByReconcileIsNotCountedTwice() {
+        StudentRepository repository = mock(StudentRepository.class);
+        StudentStatistics statistics = new StudentStatistics(repository);
+        State created = new State(1L, 10L, 12);
+        State updated = new State(2L, 10L, 15);
+        // Both commits are already in the rows, but their events arrive while the rows are read
+        when(repository.streamIdsFacultiesAndAges()).thenAnswer(invocation -> Stream.of(row(created), row(updated))
+                .onClose(() -> {
+                    statistics.onStudentChanged(new StudentChangedEvent(null, created));
+                    statistics.onStudentChanged(new StudentChangedEvent(new State(2L, null, 14), updated));
+                }));
+
+        statistics.reconcile();
+
+        assertEquals(2, statistics.count());
+        assertEquals(13.5, statistics.averageAge());
+        assertEquals(2, statistics.describe().getFaculties().get(0).getCount());
+    }
+
+    @Test
+    public void testChangeAfterReadIsKept() {
+        StudentRepository repository = mock(StudentRepository.class);
+        StudentStatistics statistics = new StudentStatistics(repository);
+        State student = new State(1L, null, 12);
+        when(repository.streamIdsFacultiesAndAges()).thenAnswer(invocation -> Stream.of(row(student))
+                .onClose(() -> statistics.onStudentChanged(new StudentChangedEvent(student, null))));
+
+        statistics.reconcile();
+
+        assertEquals(0, statistics.count());
+        assertNull(statistics.averageAge());
+    }
+
+    private static StudentRepository.IdFacultyAndAge row(State state) {
+        return new StudentRepository.IdFacultyAndAge() {
+            @Override
+            public long getId() {
+                return state.id();
+            }
+
+            @Override
+            public Long getFacultyId() {
+                return state.facultyId();
+            }
+
+            @Override
+            public int getAge() {
+                return state.age();
+            }
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package ru.hogwarts.school.test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.hogwarts.school.config.AsyncConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadExecutorTest {
+
+    @Test
+    public void testSaturatedExecutorRejectsUploads() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) new AsyncConfig()
+                .taskExecutor(registry, 1, 1, false, 1);
+        executor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<?> running = executor.submit(() -> await(release));
+            Future<?> queued = executor.submit(() -> await(release));
+
+            assertThrows(TaskRejectedException.class, () -> executor.submit(() -> { }));
+
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+            assertEquals(2, registry.get("executor.task.execution").tag("name", "taskExecutor").timer().count());
+            assertEquals(2, registry.get("executor.task.queued").tag("name", "taskExecutor").timer().count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCallerContextIsPropagated() throws Exception {
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) new AsyncConfig()
+                .taskExecutor(new SimpleMeterRegistry(), 1, 1, false, 1);
+        executor.initialize();
+        MDC.put("requestId", "abc");
+        try {
+            assertEquals("abc", executor.submit(() -> MDC.get("requestId")).get(5, TimeUnit.SECONDS));
+        } finally {
+            MDC.clear();
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}